@@ -0,0 +1,21 @@
+package application;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the passed JMH command line, always with the GC profiler,
+ * so that every result reports the allocation rate along with the throughput.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] arguments) throws java.lang.Exception {
+        var options = new OptionsBuilder()
+                .parent(new CommandLineOptions(arguments))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
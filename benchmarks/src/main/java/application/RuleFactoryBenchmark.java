@@ -0,0 +1,81 @@
+package application;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import domain.Rule;
+import domain.SyntheticRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the materialization of rules from their parsed manifests, sequentially and on a pool of worker threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleFactoryBenchmark {
+    @Param({"1000"})
+    private int ruleCount;
+
+    @Param({"0", "3"})
+    private int parameterCount;
+
+    /**
+     * The number of worker threads of the materialization; 0 means one thread per available processor.
+     */
+    @Param({"1", "2", "4", "0"})
+    private int threads;
+
+    private List<Integer> indexes;
+    private List<JsonObject> manifests;
+    private List<String> descriptions;
+    private Parallel parallel;
+
+    @Setup
+    public void setUp() {
+        this.indexes = new ArrayList<>();
+        this.manifests = new ArrayList<>();
+        this.descriptions = new ArrayList<>();
+
+        for (var index = 0; index < this.ruleCount; index++) {
+            this.indexes.add(index);
+            this.manifests.add(JsonParser.parseString(SyntheticRules.manifest(index, this.parameterCount)).getAsJsonObject());
+            this.descriptions.add(SyntheticRules.description(index, 1000));
+        }
+
+        this.parallel = new Parallel(this.threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.parallel.close();
+    }
+
+    @Benchmark
+    public List<Rule> create() {
+        return this.parallel.map(this.indexes, index -> RuleFactory.create(
+                "java",
+                SyntheticRules.key(index),
+                this.manifests.get(index),
+                this.descriptions.get(index),
+                List.of("Sonar way")
+        ));
+    }
+}
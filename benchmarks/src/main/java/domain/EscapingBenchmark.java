@@ -0,0 +1,61 @@
+package domain;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the escaping of rule documentation into Java string literals, that dominates the rendering of the registrars:
+ * the single pass escaping straight into a sink against the StringEscapeUtils baseline, that builds the escaped string.
+ * The largest length is the one of the largest rule descriptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EscapingBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int descriptionLength;
+
+    private String description;
+
+    @Setup
+    public void setUp() {
+        this.description = SyntheticRules.description(0, this.descriptionLength);
+    }
+
+    @Benchmark
+    public String escapeJava() {
+        return StringEscapeUtils.escapeJava(this.description);
+    }
+
+    @Benchmark
+    public long escapeIntoSink() throws Exception {
+        var length = new long[1];
+
+        JavaEscaper.escape(new Sink() {
+            public void append(String text) {
+                length[0] += text.length();
+            }
+
+            public void append(String text, int start, int end) {
+                length[0] += end - start;
+            }
+        }, this.description);
+
+        return length[0];
+    }
+}
@@ -0,0 +1,69 @@
+package domain;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A file system that only counts what is written into it, so that benchmarks measure the generation and not the disk.
+ * Every write is reported as a change.
+ */
+public class InMemoryFileSystem implements FileSystem {
+    private long writtenCharacterCount;
+
+    /**
+     * @return The number of characters written since the creation of the file system - to be consumed by benchmarks, so that the writes are not optimized away
+     */
+    public long getWrittenCharacterCount() {
+        return this.writtenCharacterCount;
+    }
+
+    public String resolve(String first, String... more) {
+        return more.length == 0 ? first : first + "/" + String.join("/", more);
+    }
+
+    public void write(String filePath, String content) {
+        this.writtenCharacterCount += content.length();
+    }
+
+    public boolean writeIfChanged(String filePath, String content) {
+        this.write(filePath, content);
+
+        return true;
+    }
+
+    public List<WrittenFile> writeClassFilesIfChanged(String directoryPath, RegistrarClasses registrars) {
+        // the class files themselves are written by the infrastructure: only the table they are made of is counted
+        var byteCount = registrars.table().stream().mapToLong(String::length).sum();
+
+        this.writtenCharacterCount += byteCount;
+
+        return List.of(new WrittenFile(directoryPath, byteCount, true));
+    }
+
+    public boolean writeIfChanged(String filePath, Renderer renderer) throws Exception {
+        renderer.render(text -> this.writtenCharacterCount += text.length());
+
+        return true;
+    }
+
+    public List<String> writeAllIfChanged(Map<String, String> contentsByFilePath) {
+        contentsByFilePath.values().forEach(content -> this.write(null, content));
+
+        return List.copyOf(contentsByFilePath.keySet());
+    }
+
+    public boolean writeBundleIfChanged(String filePath, Iterator<RuleData> rules) {
+        while (rules.hasNext()) {
+            var rule = rules.next();
+
+            this.writtenCharacterCount += rule.key().length() + rule.manifest().length() + rule.description().length();
+        }
+
+        return true;
+    }
+
+    public boolean delete(String filePath) {
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+package domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrarsGeneratorBenchmark {
+    @Param({"100", "1000"})
+    private int ruleCount;
+
+    @Param({"1000", "10000"})
+    private int descriptionLength;
+
+    @Param({"0", "3"})
+    private int parameterCount;
+
+    @Param({"CLASSES", "TABLE"})
+    private RegistrarLayout layout;
+
+    private final RegistrarsOptions options = RegistrarsOptions.of("org.sonar.java", "java", "java", "java", "target")
+            .withProfileNames(List.of("Sonar way"));
+
+    private InMemoryFileSystem fileSystem;
+    private RegistrarsGenerator generator;
+
+    @Setup
+    public void setUp() {
+        this.fileSystem = new InMemoryFileSystem();
+        this.generator = new RegistrarsGenerator(
+                message -> {
+                },
+                new SyntheticRuleRepository(this.ruleCount, this.descriptionLength, this.parameterCount),
+                this.fileSystem
+        );
+    }
+
+    @Benchmark
+    public long inlinedDocumentation() throws Exception {
+        this.generator.execute(this.options.withLayout(this.layout));
+
+        return this.fileSystem.getWrittenCharacterCount();
+    }
+
+    @Benchmark
+    public long externalizedDocumentation() throws Exception {
+        this.generator.execute(this.options.withLayout(this.layout).withDocumentationDirectory("resources"));
+
+        return this.fileSystem.getWrittenCharacterCount();
+    }
+
+    @Benchmark
+    public long shards() throws Exception {
+        this.generator.execute(this.options.withRulesPerShard(250));
+
+        return this.fileSystem.getWrittenCharacterCount();
+    }
+}
@@ -0,0 +1,53 @@
+package domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleDataGeneratorBenchmark {
+    @Param({"100", "1000"})
+    private int ruleCount;
+
+    @Param({"1000", "10000"})
+    private int descriptionLength;
+
+    @Param({"FILES", "BUNDLE"})
+    private RuleDataFormat format;
+
+    private InMemoryFileSystem fileSystem;
+    private RuleDataGenerator generator;
+
+    @Setup
+    public void setUp() {
+        this.fileSystem = new InMemoryFileSystem();
+        this.generator = new RuleDataGenerator(
+                message -> {
+                },
+                new SyntheticRuleRepository(this.ruleCount, this.descriptionLength, 1),
+                this.fileSystem
+        );
+    }
+
+    @Benchmark
+    public long execute() throws Exception {
+        this.generator.execute("java", "target", this.format, null, null);
+
+        return this.fileSystem.getWrittenCharacterCount();
+    }
+}
@@ -0,0 +1,32 @@
+package domain;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A rule repository holding synthetic rules in memory, for every language and rule subdirectory.
+ */
+public class SyntheticRuleRepository implements RuleRepository {
+    private final List<Rule> rules;
+    private final List<RuleData> ruleData;
+
+    public SyntheticRuleRepository(int ruleCount, int descriptionLength, int parameterCount) {
+        this.rules = SyntheticRules.rules(ruleCount, descriptionLength, parameterCount);
+        this.ruleData = SyntheticRules.ruleData(ruleCount, descriptionLength, parameterCount);
+    }
+
+    public List<Rule> getRulesByLanguage(String languageKey, RuleFilter filter) {
+        return this.rules.stream().filter(filter::accepts).toList();
+    }
+
+    /**
+     * Synthetic manifests are only filtered on their key.
+     */
+    public Stream<RuleData> streamRuleManifestsByRuleSubdirectory(String ruleSubdirectory, RuleFilter filter) {
+        return this.ruleData.stream().filter(ruleData -> filter.ruleKeys() == null || filter.ruleKeys().contains(ruleData.key()));
+    }
+
+    public List<String> getRuleKeysByRuleSubdirectory(String ruleSubdirectory) {
+        return this.ruleData.stream().map(RuleData::key).toList();
+    }
+}
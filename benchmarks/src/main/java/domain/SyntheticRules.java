@@ -0,0 +1,144 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Generates rules shaped like the ones of the rule repository, deterministically, so that benchmark runs are comparable.
+ */
+public class SyntheticRules {
+    private static final String[] TAGS = {"cwe", "pitfall", "convention", "suspicious", "owasp-a1", "performance"};
+    private static final String[] TYPES = {"CODE_SMELL", "BUG", "VULNERABILITY", "SECURITY_HOTSPOT"};
+    private static final String[] SEVERITIES = {"INFO", "MINOR", "MAJOR", "CRITICAL", "BLOCKER"};
+
+    /**
+     * A paragraph of rule documentation, with the characters that need escaping in a Java string literal - quotes, backslashes, line breaks, non-ASCII characters.
+     */
+    private static final String PARAGRAPH = """
+            <p>When a "catch" clause only rethrows the caught exception, it is useless and should be removed; use <code>\\s+</code> rather than \
+            <code>[ \\t]+</code> – it’s faster.</p>
+            <pre>
+            \tif (value == null) { return; } // Noncompliant
+            </pre>
+            """;
+
+    public static Rule rule(int index, int descriptionLength, int parameterCount) {
+        var parameters = new ArrayList<Parameter>();
+
+        for (var parameterIndex = 0; parameterIndex < parameterCount; parameterIndex++) {
+            parameters.add(new Parameter(
+                    "parameter" + parameterIndex,
+                    "The \"maximum\" allowed value of parameter " + parameterIndex,
+                    "INTEGER",
+                    String.valueOf(parameterIndex * 10)
+            ));
+        }
+
+        var impacts = new LinkedHashMap<String, String>();
+
+        impacts.put("MAINTAINABILITY", index % 2 == 0 ? "MEDIUM" : "LOW");
+
+        if (index % 3 == 0) {
+            impacts.put("RELIABILITY", "HIGH");
+        }
+
+        return new Rule(
+                key(index),
+                description(index, descriptionLength),
+                TYPES[index % TYPES.length],
+                SEVERITIES[index % SEVERITIES.length],
+                List.of(TAGS[index % TAGS.length], TAGS[(index + 1) % TAGS.length]),
+                index % 5 == 0 ? "TEST" : "MAIN",
+                index % 4 == 0 ? null : new Remediation("Constant/Issue", (index % 30 + 1) + "min", null, null, null),
+                "Rule " + index + " should not be \"violated\"",
+                List.copyOf(parameters),
+                List.of("java"),
+                index % 2 == 0 ? List.of("Sonar way") : List.of(),
+                "ready",
+                new Code(impacts, "CONVENTIONAL")
+        );
+    }
+
+    public static List<Rule> rules(int ruleCount, int descriptionLength, int parameterCount) {
+        var rules = new ArrayList<Rule>(ruleCount);
+
+        for (var index = 0; index < ruleCount; index++) {
+            rules.add(rule(index, descriptionLength, parameterCount));
+        }
+
+        return rules;
+    }
+
+    /**
+     * @return The JSON manifest of the rule of the passed index, shaped like a metadata.json file of the rule repository
+     */
+    public static String manifest(int index, int parameterCount) {
+        var rule = rule(index, 0, parameterCount);
+        var manifest = new StringBuilder("{\n");
+
+        manifest.append(String.format("  \"title\": \"%s\",\n", rule.title().replace("\"", "\\\"")));
+        manifest.append(String.format("  \"type\": \"%s\",\n", rule.type()));
+        manifest.append("  \"status\": \"ready\",\n");
+
+        if (rule.remediation() != null) {
+            manifest.append(String.format("  \"remediation\": {\"func\": \"%s\", \"constantCost\": \"%s\"},\n", rule.remediation().function(), rule.remediation().cost()));
+        }
+
+        manifest.append(String.format("  \"tags\": [\"%s\"],\n", String.join("\", \"", rule.tags())));
+        manifest.append(String.format("  \"defaultSeverity\": \"%s\",\n", rule.defaultSeverity().charAt(0) + rule.defaultSeverity().substring(1).toLowerCase()));
+        manifest.append(String.format("  \"scope\": \"%s\",\n", rule.scope().equals("TEST") ? "Tests" : "Main"));
+        manifest.append("  \"parameters\": [");
+
+        for (var parameterIndex = 0; parameterIndex < rule.parameters().size(); parameterIndex++) {
+            var parameter = rule.parameters().get(parameterIndex);
+
+            manifest.append(parameterIndex == 0 ? "\n" : ",\n");
+            manifest.append(String.format(
+                    "    {\"name\": \"%s\", \"description\": \"%s\", \"type\": \"%s\", \"defaultValue\": \"%s\"}",
+                    parameter.name(),
+                    parameter.description().replace("\"", "\\\""),
+                    parameter.type(),
+                    parameter.defaultValue()
+            ));
+        }
+
+        manifest.append("],\n");
+        manifest.append("  \"code\": {\"impacts\": {");
+        manifest.append(String.join(", ", rule.code().impacts().entrySet().stream().map(impact -> String.format("\"%s\": \"%s\"", impact.getKey(), impact.getValue())).toList()));
+        manifest.append("}, \"attribute\": \"CONVENTIONAL\"},\n");
+        manifest.append(String.format("  \"ruleSpecification\": \"RSPEC-%d\",\n", index));
+        manifest.append("  \"sqKey\": \"").append(key(index)).append("\"\n");
+
+        return manifest.append("}\n").toString();
+    }
+
+    public static List<RuleData> ruleData(int ruleCount, int descriptionLength, int parameterCount) {
+        var ruleData = new ArrayList<RuleData>(ruleCount);
+
+        for (var index = 0; index < ruleCount; index++) {
+            ruleData.add(new RuleData(key(index), manifest(index, parameterCount), description(index, descriptionLength)));
+        }
+
+        return ruleData;
+    }
+
+    public static String key(int index) {
+        return "S" + (100 + index);
+    }
+
+    /**
+     * @return A description of approximately `length` characters
+     */
+    public static String description(int index, int length) {
+        var description = new StringBuilder(length + PARAGRAPH.length());
+
+        description.append("<h2>Why is this an issue?</h2>\n<p>Rule ").append(index).append("</p>\n");
+
+        while (description.length() < length) {
+            description.append(PARAGRAPH);
+        }
+
+        return description.toString();
+    }
+}
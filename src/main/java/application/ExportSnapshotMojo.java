@@ -0,0 +1,76 @@
+package application;
+
+import domain.Metrics;
+import infrastructure.JVMHost;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.util.List;
+
+/**
+ * Exports rule subdirectories of a clone of the repository into a snapshot, that the generate-registrars and generate-rule-data goals
+ * can read the rules from without any network access - for example once deployed as an artifact.
+ */
+@Mojo(name = "export-snapshot")
+public class ExportSnapshotMojo extends AbstractMojo {
+    /**
+     * The rule subdirectories to export - for example the language keys of the registrars to generate.
+     */
+    @Parameter(required = true)
+    private List<String> ruleSubdirectories;
+
+    @Parameter(property = "rspec.snapshotFile", defaultValue = "${project.build.directory}/rspec-snapshot.zip")
+    private String snapshotFile;
+
+    @Parameter(property = "rspec.vcsRepositoryUrl", defaultValue = "https://github.com/SonarSource/rspec.git")
+    private String vcsRepositoryUrl;
+
+    @Parameter(property = "rspec.vcsBranchName", defaultValue = "master")
+    private String vcsBranchName;
+
+    /**
+     * Whether to check out only the rule subdirectories the execution reads - with a shallow, partial clone - instead of cloning the whole repository.
+     */
+    @Parameter(property = "rspec.sparseCheckout", defaultValue = "false")
+    private boolean sparseCheckout;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        var host = new JVMHost();
+        var logger = this.getLog();
+
+        try {
+            var revision = host.resolveRevision(this.vcsRepositoryUrl, this.vcsBranchName);
+            var repository = new RuleRepository(
+                    RuleRepositoryCache.get(
+                            this.vcsRepositoryUrl,
+                            this.vcsBranchName,
+                            revision,
+                            this.sparseCheckout,
+                            () -> new RuleClone(this.vcsRepositoryUrl, this.vcsBranchName, revision, host, this.sparseCheckout)
+                    ),
+                    new Parallel(1),
+                    null,
+                    null,
+                    new Metrics(),
+                    logger
+            );
+
+            var ruleCount = SnapshotRuleRepository.export(
+                    host,
+                    this.snapshotFile,
+                    repository,
+                    this.vcsRepositoryUrl,
+                    this.vcsBranchName,
+                    revision,
+                    this.ruleSubdirectories
+            );
+
+            logger.info(String.format("%d rule(s) exported to %s", ruleCount, this.snapshotFile));
+        } catch (application.IOException e) {
+            throw new MojoExecutionException(e);
+        }
+    }
+}
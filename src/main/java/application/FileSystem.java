@@ -1,6 +1,15 @@
 package application;
 
 import domain.Exception;
+import domain.RegistrarClasses;
+import domain.Renderer;
+import domain.RuleData;
+import domain.Sink;
+import domain.WrittenFile;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 public class FileSystem implements domain.FileSystem {
     private final Host host;
@@ -20,4 +29,76 @@ public class FileSystem implements domain.FileSystem {
             throw new Exception();
         }
     }
+
+    public boolean writeIfChanged(String filePath, String content) throws Exception {
+        try {
+            return this.host.writeIfChanged(filePath, content);
+        } catch (IOException e) {
+            throw new Exception();
+        }
+    }
+
+    public List<WrittenFile> writeClassFilesIfChanged(String directoryPath, RegistrarClasses registrars) throws Exception {
+        try {
+            return this.host.writeClassFilesIfChanged(directoryPath, registrars);
+        } catch (IOException e) {
+            throw new Exception(e.getMessage());
+        }
+    }
+
+    public boolean writeIfChanged(String filePath, Renderer renderer) throws Exception {
+        try (var output = this.host.open(filePath)) {
+            renderer.render(new Sink() {
+                public void append(String text) throws Exception {
+                    try {
+                        output.append(text);
+                    } catch (IOException e) {
+                        throw new Exception();
+                    }
+                }
+
+                public void append(String text, int start, int end) throws Exception {
+                    try {
+                        output.append(text, start, end);
+                    } catch (IOException e) {
+                        throw new Exception();
+                    }
+                }
+            });
+
+            return output.commit();
+        } catch (IOException e) {
+            throw new Exception();
+        }
+    }
+
+    public List<String> writeAllIfChanged(Map<String, String> contentsByFilePath) throws Exception {
+        try {
+            return this.host.writeAllIfChanged(contentsByFilePath);
+        } catch (IOException e) {
+            throw new Exception(e.getMessage());
+        }
+    }
+
+    public boolean writeBundleIfChanged(String filePath, Iterator<RuleData> rules) throws Exception {
+        try {
+            return this.host.writeBundleIfChanged(filePath, rules);
+        } catch (IOException e) {
+            throw new Exception();
+        }
+    }
+
+    public boolean delete(String filePath) throws Exception {
+        try {
+            if (!this.host.exists(filePath)) {
+                return false;
+            }
+
+            this.host.delete(filePath);
+
+            return true;
+        } catch (IOException e) {
+            throw new Exception();
+        }
+    }
 }
@@ -3,17 +3,25 @@ package application;
 import domain.*;
 
 import domain.Exception;
+import infrastructure.JVMClock;
 import infrastructure.JVMHost;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Mojo(name = "generate-registrars")
 public class GenerateRegistrarsMojo extends AbstractMojo {
-    @Parameter(property = "rspec.languageKey", required = true)
+    @Parameter(property = "rspec.languageKey")
     private String languageKey;
 
     @Parameter(property = "rspec.targetDirectory", required = true)
@@ -25,35 +33,383 @@ public class GenerateRegistrarsMojo extends AbstractMojo {
     @Parameter(property = "rspec.vcsBranchName", defaultValue = "master")
     private String vcsBranchName;
 
+    /**
+     * Whether to check out only the rule subdirectories the execution reads - with a shallow, partial clone - instead of cloning the whole repository.
+     */
+    @Parameter(property = "rspec.sparseCheckout", defaultValue = "false")
+    private boolean sparseCheckout;
+
     @Parameter(property = "rspec.profileName", defaultValue = "Sonar way")
     private String profileName;
 
-    @Parameter(property = "rspec.packageName", required = true)
+    /**
+     * The quality profiles defined by the profile registrar, every one from a single generation; when set, it replaces profileName.
+     */
+    @Parameter(property = "rspec.profileNames")
+    private List<String> profileNames;
+
+    /**
+     * Whether the profile registrar defines every quality profile the rules belong to, replacing profileName and profileNames.
+     */
+    @Parameter(property = "rspec.allProfiles", defaultValue = "false")
+    private boolean allProfiles;
+
+    @Parameter(property = "rspec.packageName")
     private String packageName;
 
     // todo: should probably not be required and default to languageKey
-    @Parameter(property = "rspec.compatibleLanguageKey", required = true)
+    @Parameter(property = "rspec.compatibleLanguageKey")
     private String compatibleLanguageKey;
 
     // todo: should probably not be required and default to languageKey
-    @Parameter(property = "rspec.repositoryKey", required = true)
+    @Parameter(property = "rspec.repositoryKey")
     private String repositoryKey;
 
+    /**
+     * The statuses of the rules to register - for example ready - or every rule whatever its status when unset.
+     * Like the compatible language, the status is checked before the description of a rule is read.
+     */
+    @Parameter(property = "rspec.ruleStatuses")
+    private List<String> ruleStatuses;
+
+    /**
+     * The keys of the rules to register - for example S100 - or every rule when unset.
+     */
+    @Parameter(property = "rspec.ruleKeys")
+    private List<String> ruleKeys;
+
+    /**
+     * The registrars to generate, sharing a single clone of the repository and a single materialization of the rules of each language.
+     * When set, it replaces the languageKey, compatibleLanguageKey, repositoryKey, packageName, profileName, profileNames and allProfiles parameters.
+     * The registrars of every target are written into targetDirectory, so the repositoryKey of every target must be unique.
+     */
+    @Parameter
+    private List<Target> targets;
+
+    /**
+     * The maximum number of rules registered by each shard of the repository registrar; 0 generates a single registrar class.
+     */
+    @Parameter(property = "rspec.rulesPerShard", defaultValue = "0")
+    private int rulesPerShard;
+
+    /**
+     * The layout of the repository registrar: "classes" registers every rule with anonymous classes,
+     * "table" packs the rules into a table of string constants, registered with a handful of classes whatever the number of rules.
+     * The table layout generates a single registrar class, and can't be combined with rulesPerShard.
+     */
+    @Parameter(property = "rspec.registrarLayout", defaultValue = "classes")
+    private String registrarLayout;
+
+    /**
+     * The resource directory the documentation of the rules is written into - typically ${project.build.outputDirectory}.
+     * When set, the registrar loads the documentation of a rule from its resource on demand, instead of inlining it as a string literal.
+     */
+    @Parameter(property = "rspec.documentationDirectory")
+    private String documentationDirectory;
+
+    /**
+     * The class output directory the registrars are written into as class files - typically ${project.build.outputDirectory} - so that they don't need to be compiled.
+     * The class files are the ones of the table layout, so registrarLayout must be "table"; no source is written then, unless debugSources is set.
+     */
+    @Parameter(property = "rspec.classesDirectory")
+    private String classesDirectory;
+
+    /**
+     * Whether to also write the sources of the class files into targetDirectory, for debugging; the directory must then not be a compile source root.
+     */
+    @Parameter(property = "rspec.debugSources", defaultValue = "false")
+    private boolean debugSources;
+
+    /**
+     * The number of threads used to render targets and to materialize their rules, at once - the rules of a target being materialized on the threads
+     * no other target keeps busy; 0 means one thread per available processor.
+     */
+    @Parameter(property = "rspec.threads", defaultValue = "1")
+    private int threads;
+
+    /**
+     * A rule snapshot exported by the export-snapshot goal, to read the rules from instead of cloning the repository.
+     */
+    @Parameter(property = "rspec.snapshotFile")
+    private String snapshotFile;
+
+    /**
+     * The coordinates of a rule snapshot artifact - groupId:artifactId[:extension[:classifier]]:version, the extension defaulting to zip -
+     * to read the rules from instead of cloning the repository.
+     */
+    @Parameter(property = "rspec.snapshotArtifact")
+    private String snapshotArtifact;
+
+    /**
+     * The maximum size, in bytes, of the on-disk cache of the rules materialized from a commit, shared by all builds; 0 disables the cache.
+     */
+    @Parameter(property = "rspec.ruleCacheSize", defaultValue = "67108864")
+    private long ruleCacheSize;
+
+    /**
+     * The file the metrics of the execution - time and volumes of every phase - are written into, as JSON;
+     * for example ${project.build.directory}/rspec-metrics.json. When unset, the metrics are only logged.
+     */
+    @Parameter(property = "rspec.metricsReportFile")
+    private String metricsReportFile;
+
+    /**
+     * Whether to only regenerate the documentation resources of the rules that changed in the repository since the commit the last execution generated from,
+     * when the configuration is unchanged since. Ignored with a rule snapshot, or when forced.
+     */
+    @Parameter(property = "rspec.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * The number of seconds during which the commit of vcsBranchName resolved by the last successful execution is trusted,
+     * so that an unchanged execution is skipped without contacting the remote repository.
+     * Opt-in: the outputs then miss the commits pushed to the branch during that interval. The default, 0, resolves the branch on every execution.
+     */
+    @Parameter(property = "rspec.revisionCheckInterval", defaultValue = "0")
+    private long revisionCheckInterval;
+
+    @Parameter(property = "rspec.force", defaultValue = "false")
+    private boolean force;
+
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    private String buildDirectory;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    @Component
+    private RepositorySystem repositorySystem;
+
+    @Parameter(defaultValue = "${repositorySystemSession}", readonly = true)
+    private RepositorySystemSession repositorySystemSession;
+
+    @Parameter(defaultValue = "${project.remoteProjectRepositories}", readonly = true)
+    private List<RemoteRepository> remoteRepositories;
+
+    /**
+     * Carries the failure of a target out of the worker that rendered it.
+     */
+    private static class TargetFailure extends RuntimeException {
+        private TargetFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
     @Override
     public void execute() throws MojoExecutionException {
         var host = new JVMHost();
+        var metrics = new Metrics(new JVMClock());
         var logger = this.getLog();
+        var targets = this.targets == null || this.targets.isEmpty()
+                ? List.of(new Target(
+                        this.languageKey,
+                        this.compatibleLanguageKey,
+                        this.repositoryKey,
+                        this.packageName,
+                        this.profileName,
+                        this.profileNames,
+                        this.allProfiles
+                ))
+                : this.targets;
+
+        RegistrarLayout layout;
+
+        try {
+            layout = RegistrarLayout.valueOf(this.registrarLayout.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(String.format("Unsupported registrar layout %s", this.registrarLayout));
+        }
+
+        if (layout == RegistrarLayout.TABLE && this.rulesPerShard > 0) {
+            throw new MojoExecutionException("The table registrar layout can't be sharded: rulesPerShard must be 0");
+        }
+
+        if (this.classesDirectory != null && layout != RegistrarLayout.TABLE) {
+            throw new MojoExecutionException("The registrar class files are written with the table layout: registrarLayout must be table");
+        }
+
+        var repositoryKeys = new HashSet<String>();
+
+        for (var target : targets) {
+            if (!target.isComplete()) {
+                throw new MojoExecutionException(String.format(
+                        "Target %s is incomplete: languageKey, compatibleLanguageKey, repositoryKey, packageName and profileName are required",
+                        target
+                ));
+            }
+
+            // the registrars of every target are written into the same directory, and named after their repository
+            if (!repositoryKeys.add(target.getRepositoryKey())) {
+                throw new MojoExecutionException(String.format(
+                        "Target %s has the same repositoryKey as another target: the targets share the target directory, their repositoryKey must be unique",
+                        target
+                ));
+            }
+        }
+
+        var snapshotPath = SnapshotArtifact.locate(
+                this.snapshotFile,
+                this.snapshotArtifact,
+                this.repositorySystem,
+                this.repositorySystemSession,
+                this.remoteRepositories
+        );
+        SnapshotRuleRepository snapshot = null;
+        var parallel = new Parallel(this.threads);
 
         try {
+            var fingerprintComponents = new ArrayList<>(List.of(
+                    this.pluginVersion,
+                    this.vcsRepositoryUrl,
+                    String.valueOf(this.rulesPerShard),
+                    this.documentationDirectory == null ? "" : this.documentationDirectory,
+                    layout.name(),
+                    this.classesDirectory == null ? "" : this.classesDirectory,
+                    String.valueOf(this.debugSources),
+                    String.valueOf(this.ruleStatuses),
+                    String.valueOf(this.ruleKeys)
+            ));
+
+            for (var target : targets) {
+                fingerprintComponents.addAll(List.of(
+                        target.getLanguageKey(),
+                        target.getCompatibleLanguageKey(),
+                        target.getRepositoryKey(),
+                        String.valueOf(target.getProfileNames()),
+                        target.getPackageName()
+                ));
+            }
+
+            var upToDateCheck = new UpToDateCheck(
+                    host,
+                    this.buildDirectory,
+                    "generate-registrars",
+                    this.targetDirectory,
+                    UpToDateCheck.fingerprint(fingerprintComponents.toArray(String[]::new))
+            );
+
+            String revision;
+            var resolvedAt = 0L;
+
+            if (snapshotPath == null) {
+                var now = System.currentTimeMillis();
+                var recentRevision = this.force ? null : upToDateCheck.getRecentRevision(now, this.revisionCheckInterval * 1000);
+
+                if (recentRevision != null) {
+                    logger.info(String.format("Registrars are up to date with %s, resolved less than %d seconds ago, skipping generation - commits pushed to %s since are ignored until then", recentRevision, this.revisionCheckInterval, this.vcsBranchName));
+                    this.writeMetricsReport(host, recentRevision, true, metrics);
+
+                    return;
+                }
+
+                var resolvedRevision = host.resolveRevision(this.vcsRepositoryUrl, this.vcsBranchName);
+
+                if (resolvedRevision != null) {
+                    revision = resolvedRevision;
+                    resolvedAt = now;
+                } else {
+                    // offline, the outputs generated from the recorded commit are assumed to be current
+                    revision = upToDateCheck.getRecordedRevision();
+
+                    if (revision != null) {
+                        logger.warn(String.format("Could not resolve %s of %s, assuming it still points to %s", this.vcsBranchName, this.vcsRepositoryUrl, revision));
+                    }
+                }
+            } else {
+                snapshot = SnapshotRuleRepository.open(host, snapshotPath);
+                revision = snapshot.getRevision() == null ? null : "snapshot " + snapshot.getRevision();
+            }
+
+            if (!this.force && upToDateCheck.isUpToDate(revision)) {
+                logger.info(String.format("Registrars are up to date with %s, skipping generation", revision));
+                this.writeMetricsReport(host, revision, true, metrics);
+
+                return;
+            }
+
+            var incrementalBase = this.incremental && !this.force && snapshot == null ? upToDateCheck.getIncrementalBase(revision) : null;
+            var repository = snapshot != null ? null : new RuleRepository(
+                    RuleRepositoryCache.get(
+                            this.vcsRepositoryUrl,
+                            this.vcsBranchName,
+                            revision,
+                            this.sparseCheckout,
+                            () -> new RuleClone(this.vcsRepositoryUrl, this.vcsBranchName, revision, host, this.sparseCheckout)
+                    ),
+                    parallel,
+                    this.ruleCacheSize > 0 && revision != null ? new RuleCache(host, revision, this.pluginVersion, this.ruleCacheSize) : null,
+                    incrementalBase,
+                    metrics,
+                    logger
+            );
+            domain.RuleRepository ruleRepository = snapshot != null ? snapshot : repository;
+
+            if (incrementalBase != null) {
+                logger.info(String.format("Regenerating the registrars incrementally, from %s to %s", incrementalBase, revision));
+            }
+
             var generator = new RegistrarsGenerator(
                     logger::info,
-                    new RuleRepository(this.vcsRepositoryUrl, this.vcsBranchName, logger),
-                    new FileSystem(host)
+                    ruleRepository,
+                    new FileSystem(host),
+                    metrics
+            );
+
+            var ruleFilter = new RuleFilter(
+                    null,
+                    this.ruleStatuses == null || this.ruleStatuses.isEmpty() ? null : Set.copyOf(this.ruleStatuses),
+                    this.ruleKeys == null || this.ruleKeys.isEmpty() ? null : Set.copyOf(this.ruleKeys)
             );
+            var outputsByTarget = parallel.map(targets, target -> {
+                try {
+                    var changedRuleKeys = incrementalBase == null ? null : repository.getChangedRuleKeys(target.getLanguageKey(), incrementalBase, revision);
 
-            generator.execute(this.packageName, this.languageKey, this.compatibleLanguageKey, this.repositoryKey, this.targetDirectory, this.profileName);
-        } catch (Exception | IOException e) {
+                    return generator.execute(
+                            RegistrarsOptions.of(
+                                            target.getPackageName(),
+                                            target.getLanguageKey(),
+                                            target.getCompatibleLanguageKey(),
+                                            target.getRepositoryKey(),
+                                            this.classesDirectory == null || this.debugSources ? this.targetDirectory : null
+                                    )
+                                    .withRuleFilter(ruleFilter)
+                                    .withProfileNames(target.getProfileNames())
+                                    .withRulesPerShard(this.rulesPerShard)
+                                    .withDocumentationDirectory(this.documentationDirectory)
+                                    .withLayout(layout)
+                                    .withChangedRuleKeys(changedRuleKeys)
+                                    .withClassDirectory(this.classesDirectory)
+                    );
+                } catch (Exception e) {
+                    throw new TargetFailure(e);
+                }
+            });
+
+            var outputs = new ArrayList<String>();
+
+            outputsByTarget.forEach(outputs::addAll);
+
+            upToDateCheck.record(revision, resolvedAt, outputs);
+
+            logger.info("Metrics of the generation phases:");
+            metrics.log(logger::info);
+            this.writeMetricsReport(host, revision, false, metrics);
+        } catch (TargetFailure e) {
+            throw new MojoExecutionException(e.getCause());
+        } catch (application.IOException | IllegalStateException e) {
             throw new MojoExecutionException(e);
+        } finally {
+            parallel.close();
+
+            if (snapshot != null) {
+                snapshot.close();
+            }
+        }
+    }
+
+    private void writeMetricsReport(Host host, String revision, boolean upToDate, Metrics metrics) throws application.IOException {
+        if (this.metricsReportFile != null) {
+            MetricsReport.write(host, this.metricsReportFile, "generate-registrars", revision, upToDate, metrics);
         }
     }
 }
@@ -2,13 +2,19 @@ package application;
 
 import domain.*;
 import domain.Exception;
+import infrastructure.JVMClock;
 import infrastructure.JVMHost;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
 
-import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 @Mojo(name = "generate-rule-data")
 public class GenerateRuleDataMojo extends AbstractMojo {
@@ -24,21 +30,208 @@ public class GenerateRuleDataMojo extends AbstractMojo {
     @Parameter(property = "rspec.vcsBranchName", defaultValue = "master")
     private String vcsBranchName;
 
+    /**
+     * Whether to check out only the rule subdirectories the execution reads - with a shallow, partial clone - instead of cloning the whole repository.
+     */
+    @Parameter(property = "rspec.sparseCheckout", defaultValue = "false")
+    private boolean sparseCheckout;
+
+    /**
+     * The format of the rule data: "files" writes one manifest and one description file per rule,
+     * "bundle" writes a single indexed rules.bundle file, readable with infrastructure.RuleBundle.
+     */
+    @Parameter(property = "rspec.format", defaultValue = "files")
+    private String format;
+
+    /**
+     * A rule snapshot exported by the export-snapshot goal, to read the rules from instead of cloning the repository.
+     */
+    @Parameter(property = "rspec.snapshotFile")
+    private String snapshotFile;
+
+    /**
+     * The coordinates of a rule snapshot artifact - groupId:artifactId[:extension[:classifier]]:version, the extension defaulting to zip -
+     * to read the rules from instead of cloning the repository.
+     */
+    @Parameter(property = "rspec.snapshotArtifact")
+    private String snapshotArtifact;
+
+    /**
+     * The file the metrics of the execution - time and volumes of every phase - are written into, as JSON;
+     * for example ${project.build.directory}/rspec-metrics.json. When unset, the metrics are only logged.
+     */
+    @Parameter(property = "rspec.metricsReportFile")
+    private String metricsReportFile;
+
+    /**
+     * Whether to only regenerate the files of the rules that changed in the repository since the commit the last execution generated from,
+     * when the configuration is unchanged since. Ignored with a rule snapshot, with the bundle format, or when forced.
+     */
+    @Parameter(property = "rspec.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * The number of seconds during which the commit of vcsBranchName resolved by the last successful execution is trusted,
+     * so that an unchanged execution is skipped without contacting the remote repository.
+     * Opt-in: the outputs then miss the commits pushed to the branch during that interval. The default, 0, resolves the branch on every execution.
+     */
+    @Parameter(property = "rspec.revisionCheckInterval", defaultValue = "0")
+    private long revisionCheckInterval;
+
+    @Parameter(property = "rspec.force", defaultValue = "false")
+    private boolean force;
+
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    private String buildDirectory;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    @Component
+    private RepositorySystem repositorySystem;
+
+    @Parameter(defaultValue = "${repositorySystemSession}", readonly = true)
+    private RepositorySystemSession repositorySystemSession;
+
+    @Parameter(defaultValue = "${project.remoteProjectRepositories}", readonly = true)
+    private List<RemoteRepository> remoteRepositories;
+
     @Override
     public void execute() throws MojoExecutionException {
         var host = new JVMHost();
+        var metrics = new Metrics(new JVMClock());
         var logger = this.getLog();
+        RuleDataFormat format;
+
+        try {
+            format = RuleDataFormat.valueOf(this.format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(String.format("Unsupported rule data format %s", this.format));
+        }
+
+        var snapshotPath = SnapshotArtifact.locate(
+                this.snapshotFile,
+                this.snapshotArtifact,
+                this.repositorySystem,
+                this.repositorySystemSession,
+                this.remoteRepositories
+        );
+        SnapshotRuleRepository snapshot = null;
 
         try {
+            var upToDateCheck = new UpToDateCheck(
+                    host,
+                    this.buildDirectory,
+                    "generate-rule-data",
+                    this.targetDirectory,
+                    UpToDateCheck.fingerprint(
+                            this.pluginVersion,
+                            this.vcsRepositoryUrl,
+                            this.ruleSubdirectory,
+                            this.format
+                    )
+            );
+
+            String revision;
+            var resolvedAt = 0L;
+
+            if (snapshotPath == null) {
+                var now = System.currentTimeMillis();
+                var recentRevision = this.force ? null : upToDateCheck.getRecentRevision(now, this.revisionCheckInterval * 1000);
+
+                if (recentRevision != null) {
+                    logger.info(String.format("Rule data is up to date with %s, resolved less than %d seconds ago, skipping generation - commits pushed to %s since are ignored until then", recentRevision, this.revisionCheckInterval, this.vcsBranchName));
+                    this.writeMetricsReport(host, recentRevision, true, metrics);
+
+                    return;
+                }
+
+                var resolvedRevision = host.resolveRevision(this.vcsRepositoryUrl, this.vcsBranchName);
+
+                if (resolvedRevision != null) {
+                    revision = resolvedRevision;
+                    resolvedAt = now;
+                } else {
+                    // offline, the outputs generated from the recorded commit are assumed to be current
+                    revision = upToDateCheck.getRecordedRevision();
+
+                    if (revision != null) {
+                        logger.warn(String.format("Could not resolve %s of %s, assuming it still points to %s", this.vcsBranchName, this.vcsRepositoryUrl, revision));
+                    }
+                }
+            } else {
+                snapshot = SnapshotRuleRepository.open(host, snapshotPath);
+                revision = snapshot.getRevision() == null ? null : "snapshot " + snapshot.getRevision();
+            }
+
+            if (!this.force && upToDateCheck.isUpToDate(revision)) {
+                logger.info(String.format("Rule data is up to date with %s, skipping generation", revision));
+                this.writeMetricsReport(host, revision, true, metrics);
+
+                return;
+            }
+
+            var incrementalBase = this.incremental && !this.force && snapshot == null && format == RuleDataFormat.FILES ? upToDateCheck.getIncrementalBase(revision) : null;
+            Set<String> changedRuleKeys = null;
+            domain.RuleRepository ruleRepository = snapshot;
+
+            if (snapshot == null) {
+                var repository = new RuleRepository(
+                        RuleRepositoryCache.get(
+                                this.vcsRepositoryUrl,
+                                this.vcsBranchName,
+                                revision,
+                                this.sparseCheckout,
+                                () -> new RuleClone(this.vcsRepositoryUrl, this.vcsBranchName, revision, host, this.sparseCheckout)
+                        ),
+                        new Parallel(1),
+                        null,
+                        null,
+                        metrics,
+                        logger
+                );
+
+                ruleRepository = repository;
+
+                if (incrementalBase != null) {
+                    changedRuleKeys = repository.getChangedRuleKeys(this.ruleSubdirectory, incrementalBase, revision);
+
+                    logger.info(String.format("Regenerating the rule data incrementally, from %s to %s", incrementalBase, revision));
+                }
+            }
+
             var generator = new RuleDataGenerator(
                     logger::info,
-                    new RuleRepository(this.vcsRepositoryUrl, this.vcsBranchName, logger),
-                    new FileSystem(host)
+                    ruleRepository,
+                    new FileSystem(host),
+                    metrics
+            );
+
+            var outputs = generator.execute(
+                    this.ruleSubdirectory,
+                    this.targetDirectory,
+                    format,
+                    changedRuleKeys,
+                    upToDateCheck.getRecordedOutputs()
             );
 
-            generator.execute(this.ruleSubdirectory, this.targetDirectory);
-        } catch (Exception | IOException e) {
+            upToDateCheck.record(revision, resolvedAt, outputs);
+
+            logger.info("Metrics of the generation phases:");
+            metrics.log(logger::info);
+            this.writeMetricsReport(host, revision, false, metrics);
+        } catch (Exception | application.IOException | IllegalStateException e) {
             throw new MojoExecutionException(e);
+        } finally {
+            if (snapshot != null) {
+                snapshot.close();
+            }
+        }
+    }
+
+    private void writeMetricsReport(Host host, String revision, boolean upToDate, Metrics metrics) throws application.IOException {
+        if (this.metricsReportFile != null) {
+            MetricsReport.write(host, this.metricsReportFile, "generate-rule-data", revision, upToDate, metrics);
         }
     }
 }
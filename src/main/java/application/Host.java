@@ -1,6 +1,73 @@
 package application;
 
+import domain.RegistrarClasses;
+import domain.Rule;
+import domain.RuleData;
+import domain.WrittenFile;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 public interface Host {
+    /**
+     * A file being written piece by piece, that is only published once committed.
+     */
+    interface Output extends AutoCloseable {
+        void append(String text) throws IOException;
+
+        /**
+         * Append the characters of the passed `text` from index `start`, inclusive, to index `end`, exclusive.
+         */
+        void append(String text, int start, int end) throws IOException;
+
+        /**
+         * Publish the appended content to the file, unless the file already holds exactly that content.
+         *
+         * @return Whether the file was written
+         * @throws IOException
+         */
+        boolean commit() throws IOException;
+
+        /**
+         * Discard the appended content, unless it was committed.
+         */
+        void close();
+    }
+
+    /**
+     * A lock held on a file - by this process, against the other ones, and by this thread, against the other threads of this process - until it is closed.
+     */
+    interface Lock extends AutoCloseable {
+        void close();
+    }
+
+    /**
+     * An archive whose entries are read on demand, without extracting it.
+     */
+    interface Archive extends AutoCloseable {
+        /**
+         * @return The content of the entry named after the passed `entryName`, or null if the archive has no such entry
+         */
+        String read(String entryName) throws IOException;
+
+        void close();
+    }
+
+    /**
+     * An archive being written entry by entry, that is only published once committed.
+     */
+    interface ArchiveOutput extends AutoCloseable {
+        void add(String entryName, String content) throws IOException;
+
+        void commit() throws IOException;
+
+        /**
+         * Discard the added entries, unless they were committed.
+         */
+        void close();
+    }
+
     String resolve(String first, String... more);
 
     /**
@@ -11,4 +78,191 @@ public interface Host {
      * @throws IOException
      */
     void write(String filePath, String content) throws IOException;
+
+    /**
+     * Write the passed `content` into the file located at the passed `filePath`, unless the file already holds exactly that content.
+     *
+     * @param filePath The absolute path of the file to write into
+     * @param content The content to write into the file
+     * @return Whether the file was written
+     * @throws IOException
+     */
+    boolean writeIfChanged(String filePath, String content) throws IOException;
+
+    /**
+     * Write the class files of the passed registrars - along with the ones of the helper classes of the repository registrar - into the class output directory
+     * located at the passed `directoryPath`, creating the directories of their packages in the process, unless a file already holds exactly its class file.
+     *
+     * @param directoryPath The absolute path of the class output directory
+     * @param registrars The registrars to write
+     * @return Every class file, written or not
+     * @throws IOException
+     */
+    List<WrittenFile> writeClassFilesIfChanged(String directoryPath, RegistrarClasses registrars) throws IOException;
+
+    /**
+     * Open the file located at the passed `filePath` for writing, creating intermediate directories in the process.
+     * The file itself is left untouched until the returned output is committed.
+     *
+     * @param filePath The absolute path of the file to write into
+     * @return The output to append the content of the file to
+     * @throws IOException
+     */
+    Output open(String filePath) throws IOException;
+
+    /**
+     * Write every passed content into the file it is associated with, unless the file already holds exactly that content.
+     * Every distinct parent directory is created once, files are written concurrently, and every file is attempted even when some of them fail.
+     *
+     * @param contentsByFilePath The contents to write, indexed by the absolute path of the file to write them into
+     * @return The absolute paths of the files that were written, in the order of the passed contents
+     * @throws IOException listing every file that could not be written
+     */
+    List<String> writeAllIfChanged(Map<String, String> contentsByFilePath) throws IOException;
+
+    /**
+     * Write the passed rules into a single bundle file located at the passed `filePath`, unless the file already holds exactly that bundle.
+     *
+     * @param filePath The absolute path of the bundle file to write into
+     * @param rules The rules to write into the bundle, consumed one by one
+     * @return Whether the file was written
+     * @throws IOException
+     */
+    boolean writeBundleIfChanged(String filePath, Iterator<RuleData> rules) throws IOException;
+
+    /**
+     * Open the archive located at the passed `filePath`.
+     *
+     * @param filePath The absolute path of the archive
+     * @return The archive
+     * @throws IOException
+     */
+    Archive openArchive(String filePath) throws IOException;
+
+    /**
+     * Create the archive located at the passed `filePath`, creating intermediate directories in the process.
+     * The file itself is left untouched until the returned output is committed.
+     *
+     * @param filePath The absolute path of the archive
+     * @return The output to add the entries of the archive to
+     * @throws IOException
+     */
+    ArchiveOutput createArchive(String filePath) throws IOException;
+
+    /**
+     * Read the content of the file located at the passed `filePath`.
+     *
+     * @param filePath The absolute path of the file to read
+     * @return The content of the file, or null if the file doesn't exist
+     * @throws IOException
+     */
+    String read(String filePath) throws IOException;
+
+    /**
+     * Convert the AsciiDoc document located at the passed `filePath` into HTML, without the header and footer of a standalone page.
+     * Its includes are resolved relative to its own directory, and can't reach outside of the passed base directory.
+     *
+     * @param filePath The absolute path of the document to convert
+     * @param baseDirectory The absolute path of the directory holding the document and every file it includes
+     * @return The HTML, or null if the file doesn't exist
+     * @throws IOException
+     */
+    String convertAsciiDoc(String filePath, String baseDirectory) throws IOException;
+
+    boolean exists(String filePath);
+
+    /**
+     * List the entries of the directory located at the passed `directoryPath`.
+     *
+     * @param directoryPath The absolute path of the directory to list
+     * @return The names of the entries, sorted, or an empty list if the directory doesn't exist
+     * @throws IOException
+     */
+    List<String> list(String directoryPath) throws IOException;
+
+    /**
+     * Delete the file located at the passed `filePath`, if it exists.
+     *
+     * @param filePath The absolute path of the file to delete
+     * @throws IOException
+     */
+    void delete(String filePath) throws IOException;
+
+    /**
+     * Read the rules cached in the file located at the passed `filePath`, in a single read, and mark the file as the most recently used one.
+     *
+     * @param key The key the rules must have been cached under
+     * @return The rules, or null if the file doesn't exist, holds rules cached under another key, or is corrupted
+     */
+    List<Rule> readRules(String filePath, String key);
+
+    /**
+     * Cache the passed rules into the file located at the passed `filePath`, under the passed `key`, creating intermediate directories in the process.
+     *
+     * @throws IOException
+     */
+    void writeRules(String filePath, String key, List<Rule> rules) throws IOException;
+
+    /**
+     * Delete the least recently used files of the directory located at the passed `directoryPath`, until their total size doesn't exceed `maximumSize`.
+     *
+     * @param maximumSize The maximum total size of the files, in bytes
+     * @throws IOException
+     */
+    void trim(String directoryPath, long maximumSize) throws IOException;
+
+    /**
+     * Resolve the commit the passed branch of the passed remote repository currently points to, without cloning it.
+     *
+     * @param url The URL of the remote repository
+     * @param branchName The name of the branch, or tag, to resolve
+     * @return The SHA of the commit, or null if it could not be resolved - for example when the remote is unreachable
+     */
+    String resolveRevision(String url, String branchName);
+
+    /**
+     * Check out the passed commit of the passed branch of the passed remote repository into the passed directory, restricted to the paths matching the passed patterns.
+     * Only the objects needed by those paths are fetched, so that the clone holds neither the history nor the content of the other paths.
+     * An existing checkout is updated in place, and its patterns are replaced by the passed ones.
+     *
+     * @param url The URL of the remote repository
+     * @param branchName The name of the branch, or tag, to check out
+     * @param revision The SHA of the commit to check out, or null to check out the tip of the branch
+     * @param directory The absolute path of the directory to check out into
+     * @param patterns The sparse-checkout patterns, with the syntax of .gitignore, of the paths to check out
+     * @return The SHA of the commit checked out
+     * @throws IOException
+     */
+    String checkoutSparse(String url, String branchName, String revision, String directory, List<String> patterns) throws IOException;
+
+    /**
+     * Reset the clone located in the passed directory to the passed commit, fetching it first if it is missing.
+     *
+     * @param directory The absolute path of the directory of the clone
+     * @param revision The SHA of the commit to reset the clone to, or null to leave the clone at its current commit
+     * @return The SHA of the commit the clone is at
+     * @throws IOException
+     */
+    String checkout(String directory, String revision) throws IOException;
+
+    /**
+     * Lock the file located at the passed `filePath`, creating it - and its intermediate directories - if it doesn't exist, waiting for the lock to be available.
+     * A shared lock is held along with the other shared locks, while an exclusive lock is held alone, whatever the process or the thread holding them.
+     *
+     * @param filePath The absolute path of the lock file
+     * @param shared Whether the lock is shared, or exclusive
+     * @throws IOException
+     */
+    Lock lock(String filePath, boolean shared) throws IOException;
+
+    /**
+     * List the paths that differ between two commits of the clone located in the passed directory.
+     * A commit missing from a shallow clone is fetched - without its history nor its content - first.
+     *
+     * @param directory The absolute path of the directory of the clone
+     * @param fromRevision The SHA of the older commit
+     * @param toRevision The SHA of the newer commit
+     * @return The paths, relative to the root of the repository, or null if they could not be listed - for example when a commit is unknown to the remote
+     */
+    List<String> changedPaths(String directory, String fromRevision, String toRevision);
 }
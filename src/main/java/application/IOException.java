@@ -1,4 +1,10 @@
 package application;
 
 public class IOException extends Throwable {
+    public IOException() {
+    }
+
+    public IOException(String message) {
+        super(message);
+    }
 }
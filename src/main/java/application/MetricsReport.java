@@ -0,0 +1,43 @@
+package application;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import domain.Metrics;
+
+import java.util.TreeMap;
+
+/**
+ * Writes the metrics of an execution as a JSON document, to track them across builds.
+ */
+public class MetricsReport {
+    /**
+     * @param goal The name of the goal
+     * @param revision The commit the rules were read from, or null if it is unknown
+     * @param upToDate Whether the generation was skipped because its outputs were up to date
+     */
+    public static void write(Host host, String filePath, String goal, String revision, boolean upToDate, Metrics metrics) throws IOException {
+        var report = new JsonObject();
+        var phases = new JsonArray();
+
+        for (var phase : metrics.getPhases()) {
+            var phaseAsJsonObject = new JsonObject();
+            var counters = new JsonObject();
+
+            new TreeMap<>(phase.counters()).forEach(counters::addProperty);
+
+            phaseAsJsonObject.addProperty("name", phase.name());
+            phaseAsJsonObject.addProperty("wallTimeMillis", phase.wallTime() / 1_000_000);
+            phaseAsJsonObject.addProperty("cpuTimeMillis", phase.cpuTime() / 1_000_000);
+            phaseAsJsonObject.add("counters", counters);
+            phases.add(phaseAsJsonObject);
+        }
+
+        report.addProperty("goal", goal);
+        report.addProperty("revision", revision);
+        report.addProperty("upToDate", upToDate);
+        report.add("phases", phases);
+
+        host.write(filePath, new GsonBuilder().serializeNulls().setPrettyPrinting().create().toJson(report) + "\n");
+    }
+}
@@ -0,0 +1,113 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A pool of worker threads, shared by every map of an execution - including the maps nested in the items of another map.
+ * The thread calling a map works on its items too, so that nested maps never wait on a pool kept busy by their callers,
+ * and an execution never runs more than its number of threads at once, however deep its maps are nested.
+ */
+public class Parallel implements AutoCloseable {
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param threads The number of threads an execution runs at once, the threads calling its maps included; 1 maps the items sequentially on the calling thread,
+     *                and any value lower than 1 means one thread per available processor
+     */
+    public Parallel(int threads) {
+        var workerCount = threads(threads) - 1;
+
+        if (workerCount < 1) {
+            this.executor = null;
+        } else {
+            this.executor = new ThreadPoolExecutor(workerCount, workerCount, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                var thread = new Thread(runnable, "rspec-worker");
+
+                thread.setDaemon(true);
+
+                return thread;
+            });
+
+            // a pool left idle, such as one shared by the whole process, holds no thread
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Resolve the passed number of threads: any value lower than 1 means one thread per available processor.
+     */
+    public static int threads(int threads) {
+        return threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    /**
+     * Apply the passed `function` to every item of the passed `items`, on the calling thread and on the worker threads of the pool.
+     * The results are returned in the order of the items they were computed from, whatever the order of completion.
+     *
+     * @param items The items to map
+     * @param function The function to apply to every item
+     * @return The results, in the order of the items
+     */
+    public <T, R> List<R> map(List<T> items, Function<T, R> function) {
+        if (this.executor == null || items.size() <= 1) {
+            return items.stream().map(function).toList();
+        }
+
+        var tasks = new ArrayList<FutureTask<R>>(items.size());
+
+        for (var item : items) {
+            var task = new FutureTask<>(() -> function.apply(item));
+
+            tasks.add(task);
+            this.executor.execute(task);
+        }
+
+        try {
+            // the tasks a worker already started are left to it, running a task twice being a no-op
+            for (var task : tasks) {
+                task.run();
+            }
+
+            var results = new ArrayList<R>(items.size());
+
+            for (var task : tasks) {
+                results.add(task.get());
+            }
+
+            return Collections.unmodifiableList(results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // the tasks left queued after a failure are not run
+            for (var task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package application;
+
+import com.sonarsource.ruleapi.utilities.RuleApiCache;
+import domain.Rule;
+import domain.RuleFilter;
+
+import java.util.List;
+
+/**
+ * Caches the rules materialized from a commit of the repository on disk, next to the clones of the repository,
+ * so that the builds that follow don't have to clone the repository and parse the rules again.
+ * <p>
+ * The rules of a language are cached in their own file, keyed by the commit, the language, the filter they passed and the version of the plugin - that determines how rules are materialized.
+ * The least recently used files are deleted whenever the cache grows beyond its maximum size.
+ */
+public class RuleCache {
+    private final Host host;
+    private final String directoryPath;
+    private final String revision;
+    private final String pluginVersion;
+    private final long maximumSize;
+
+    /**
+     * @param revision The commit the rules are materialized from
+     * @param pluginVersion The version of the plugin
+     * @param maximumSize The maximum total size of the cache, in bytes
+     */
+    public RuleCache(Host host, String revision, String pluginVersion, long maximumSize) {
+        this.host = host;
+        this.directoryPath = RuleApiCache.getCachePath().resolve("materialized-rules").toString();
+        this.revision = revision;
+        this.pluginVersion = pluginVersion;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return The commit the cached rules are materialized from
+     */
+    public String getRevision() {
+        return this.revision;
+    }
+
+    /**
+     * @return The cache of the rules materialized from the passed commit, sharing the directory and the maximum size of this one
+     */
+    public RuleCache withRevision(String revision) {
+        return new RuleCache(this.host, revision, this.pluginVersion, this.maximumSize);
+    }
+
+    /**
+     * @return The cached rules of the passed language that passed the passed filter, or null if they are not cached
+     */
+    public List<Rule> read(String languageKey, RuleFilter filter) {
+        return this.host.readRules(this.filePath(languageKey, filter), this.key(languageKey, filter));
+    }
+
+    /**
+     * Cache the passed rules of the passed language that passed the passed filter, then evict the least recently used rules if the cache grew beyond its maximum size.
+     */
+    public void write(String languageKey, RuleFilter filter, List<Rule> rules) throws IOException {
+        this.host.writeRules(this.filePath(languageKey, filter), this.key(languageKey, filter), rules);
+        this.host.trim(this.directoryPath, this.maximumSize);
+    }
+
+    private String key(String languageKey, RuleFilter filter) {
+        return String.join("\n", this.revision, languageKey, filter.toString(), this.pluginVersion);
+    }
+
+    private String filePath(String languageKey, RuleFilter filter) {
+        return this.host.resolve(
+                this.directoryPath,
+                UpToDateCheck.fingerprint(this.revision, languageKey, filter.toString(), this.pluginVersion).substring(0, 16) + ".rules"
+        );
+    }
+}
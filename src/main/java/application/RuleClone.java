@@ -0,0 +1,468 @@
+package application;
+
+import com.sonarsource.ruleapi.domain.RuleFiles;
+import com.sonarsource.ruleapi.github.GitClone;
+import com.sonarsource.ruleapi.github.GitHubRuleMaker;
+import com.sonarsource.ruleapi.utilities.RuleApiCache;
+import domain.Metrics;
+import domain.Rule;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The clone of a branch of the rule repository at a commit, shared by the executions of this process that read that commit - through RuleRepositoryCache -
+ * along with the rules materialized from it, that are immutable.
+ * It holds nothing of the executions themselves: their metrics and their logger are passed along every request, and only used while it runs.
+ * <p>
+ * The clone is only cloned once rules are requested. It is also shared with concurrent builds cloning the same URL, that lock it through the host,
+ * and record the commit it is actually checked out at - so that a build never reads a clone another one moved to another commit.
+ * A sparse checkout is only updated by the first build to find it outdated; rule-api still fetches a full clone once per process, when it creates its rule maker.
+ * <p>
+ * A full clone is scanned by rule-api, while a sparse checkout - that rule-api can't read - is read directly, one rule at a time.
+ */
+public class RuleClone {
+    private final String url;
+    private final String branchName;
+    private final String revision;
+    private final String cacheKey;
+    private final String directory;
+    private final Host host;
+    private final boolean sparseCheckout;
+    private final LinkedHashSet<String> checkedOutRuleSubdirectories = new LinkedHashSet<>();
+    private final ConcurrentHashMap<String, FutureTask<List<Rule>>> rulesByKey = new ConcurrentHashMap<>();
+    private GitHubRuleMaker ruleMaker;
+
+    /**
+     * The commit this instance last checked the clone out at - the one it reads when the requested commit is unknown.
+     */
+    private volatile String checkedOutRevision;
+
+    /**
+     * @param revision The commit the branch points to, or null if it is unknown - in which case the clone is updated by every execution
+     * @param host The host git is run with, to check out rule subdirectories, list changes and lock the clone; null only clones through rule-api, without locking
+     * @param sparseCheckout Whether to check out only the requested rule subdirectories, instead of cloning the whole repository; it requires a host
+     */
+    public RuleClone(String url, String branchName, String revision, Host host, boolean sparseCheckout) {
+        this(url, branchName, revision, host, sparseCheckout, null);
+    }
+
+    /**
+     * @param directory The absolute path of the directory of the clone, or null for a directory of the rule-api cache, named after the URL
+     */
+    RuleClone(String url, String branchName, String revision, Host host, boolean sparseCheckout, String directory) {
+        var cacheKey = url
+                .replaceAll(":", "_")
+                .replaceAll("/", "_");
+
+        if (sparseCheckout) {
+            // a sparse checkout is kept apart from the full clone, that would otherwise lack the rule subdirectories it didn't check out
+            cacheKey += "-sparse";
+        }
+
+        this.url = url;
+        this.branchName = branchName;
+        this.revision = revision;
+        this.cacheKey = cacheKey;
+        this.directory = directory;
+        this.host = host;
+        this.sparseCheckout = sparseCheckout;
+    }
+
+    /**
+     * Stream the rules of the passed subdirectory, cloning - or updating - the clone first if needed.
+     * <p>
+     * A sparse checkout is read one rule at a time, as the stream is consumed, and can't be updated until the stream is closed - not even by this thread,
+     * that must not request another subdirectory, or changes, meanwhile. A full clone is scanned by rule-api as a whole.
+     *
+     * @param metrics The metrics the "clone" and "scan" phases are recorded into
+     */
+    Stream<RuleFile> stream(String ruleSubdirectory, Metrics metrics, Log logger) {
+        if (!this.sparseCheckout) {
+            return this.read(ruleSubdirectory, metrics, logger, () -> this.scanClone(ruleSubdirectory, metrics)).stream().map(RuleFile::of);
+        }
+
+        var lock = this.open(ruleSubdirectory, metrics, logger);
+
+        try {
+            var ruleTree = new RuleTree(this.host, this.clonePath());
+            var ruleKeys = this.scanCheckout(ruleTree, ruleSubdirectory, metrics);
+
+            return ruleKeys.stream().map(ruleKey -> ruleTree.read(ruleKey, ruleSubdirectory)).onClose(lock::close);
+        } catch (RuntimeException e) {
+            lock.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * List the keys of the rules of the passed subdirectory, in the order they are streamed in; the rules of a sparse checkout are not even read.
+     */
+    List<String> getRuleKeys(String ruleSubdirectory, Metrics metrics, Log logger) {
+        if (!this.sparseCheckout) {
+            return this.read(ruleSubdirectory, metrics, logger, () -> this.scanClone(ruleSubdirectory, metrics)).stream().map(RuleFiles::getKey).toList();
+        }
+
+        var lock = this.open(ruleSubdirectory, metrics, logger);
+
+        try {
+            return this.scanCheckout(new RuleTree(this.host, this.clonePath()), ruleSubdirectory, metrics);
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * List the keys of the rules that changed between two commits.
+     *
+     * @param ruleSubdirectory The rule subdirectory the clone must hold - the clone being only guaranteed to exist once a subdirectory is scanned
+     * @param fromRevision The older commit
+     * @param toRevision The newer commit
+     * @return The keys of the rules whose directory changed, or null if the changes can't be listed - for example without a host -
+     * or if shared content - that any rule may depend on - changed
+     */
+    public Set<String> getChangedRuleKeys(String ruleSubdirectory, String fromRevision, String toRevision, Metrics metrics, Log logger) {
+        if (this.host == null) {
+            return null;
+        }
+
+        this.read(ruleSubdirectory, metrics, logger, () -> null);
+
+        List<String> changedPaths;
+
+        // listing the changes may fetch a missing commit into the clone
+        synchronized (this) {
+            try {
+                var lock = this.lock(false);
+
+                try {
+                    changedPaths = this.host.changedPaths(this.clonePath(), fromRevision, toRevision);
+                } finally {
+                    lock.close();
+                }
+            } catch (application.IOException e) {
+                return null;
+            }
+        }
+
+        if (changedPaths == null) {
+            return null;
+        }
+
+        var changedRuleKeys = new TreeSet<String>();
+
+        for (var changedPath : changedPaths) {
+            var segments = changedPath.split("/");
+
+            if (segments[0].equals("shared_content") || (segments[0].equals("rules") && segments.length == 2)) {
+                return null;
+            }
+
+            if (segments[0].equals("rules")) {
+                changedRuleKeys.add(segments[1]);
+            }
+        }
+
+        return changedRuleKeys;
+    }
+
+    /**
+     * The rules materialized under a key - their language and the filter they passed - are materialized once, by the first caller,
+     * and shared with every subsequent - or concurrent - caller, whatever the execution.
+     */
+    public List<Rule> getRules(String key, Callable<List<Rule>> materialization) {
+        var value = this.rulesByKey.computeIfAbsent(key, k -> new FutureTask<>(materialization));
+
+        // only the first call runs the task; the other ones wait for its completion
+        value.run();
+
+        try {
+            return value.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            // forget the failure, so that the next call tries again
+            this.rulesByKey.remove(key, value);
+
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Read the clone with the passed `reading`, once it holds the passed rule subdirectory at the requested commit.
+     * <p>
+     * The clone is read under a shared lock when it is current, and only updated under an exclusive lock when it is not,
+     * by the first execution to get that lock - the other ones then finding it current.
+     */
+    private <T> T read(String ruleSubdirectory, Metrics metrics, Log logger, Supplier<T> reading) {
+        // neither the rule maker nor the checkout are known to be thread-safe
+        synchronized (this) {
+            try {
+                if (this.host == null) {
+                    this.update(ruleSubdirectory, null, metrics, logger);
+
+                    return reading.get();
+                }
+
+                var sharedLock = this.lock(true);
+
+                try {
+                    if ((this.sparseCheckout || this.ruleMaker != null) && this.isCheckedOut(ruleSubdirectory, this.readCheckout())) {
+                        return reading.get();
+                    }
+                } finally {
+                    sharedLock.close();
+                }
+
+                var exclusiveLock = this.lock(false);
+
+                try {
+                    this.update(ruleSubdirectory, this.readCheckout(), metrics, logger);
+
+                    return reading.get();
+                } finally {
+                    exclusiveLock.close();
+                }
+            } catch (IOException | application.IOException e) {
+                throw new IllegalStateException(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lock the clone - shared - once it holds the passed rule subdirectory at the requested commit, updating it first if needed.
+     * <p>
+     * Unlike `read`, the clone is only synchronized while it is updated: a thread holding the clone locked can lock it again - shared - while another thread
+     * waits to update it.
+     *
+     * @return The held lock, that the caller must close
+     */
+    private Host.Lock open(String ruleSubdirectory, Metrics metrics, Log logger) {
+        try {
+            while (true) {
+                var lock = this.lock(true);
+
+                try {
+                    if (this.isCheckedOut(ruleSubdirectory, this.readCheckout())) {
+                        return lock;
+                    }
+                } catch (application.IOException | RuntimeException e) {
+                    lock.close();
+
+                    throw e;
+                }
+
+                lock.close();
+
+                // the clone may have been updated meanwhile, in which case it is read again under a shared lock
+                synchronized (this) {
+                    var exclusiveLock = this.lock(false);
+
+                    try {
+                        this.update(ruleSubdirectory, this.readCheckout(), metrics, logger);
+                    } finally {
+                        exclusiveLock.close();
+                    }
+                }
+            }
+        } catch (IOException | application.IOException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private GitHubRuleMaker createRuleMaker(Log logger) throws IOException {
+        /**
+         * Unfortunately, GitHubRuleMaker clones the repository during its creation.
+         * Thus, we need to log as soon as we create it.
+         */
+        logger.info(String.format("Cloning repository %s, branch %s", this.url, this.branchName));
+        logger.debug(String.format("Git repository cache key is %s", this.cacheKey));
+
+        return new GitHubRuleMaker(new GitClone(this.url, Path.of(this.clonePath()), this.branchName));
+    }
+
+    private String clonePath() {
+        return this.directory == null ? RuleApiCache.getCachePath().resolve(this.cacheKey).toString() : this.directory;
+    }
+
+    /**
+     * Update the clone, unless the passed checkout - the one recorded by the last execution to update it - already holds the passed rule subdirectory at the requested commit,
+     * then record the commit the clone is actually checked out at.
+     * A full clone is reset to the requested commit - rule-api only fetching the tip of the branch - and its rule maker created again if the clone was moved meanwhile.
+     *
+     * @param checkout The recorded checkout, or null if it is unknown
+     */
+    private void update(String ruleSubdirectory, Checkout checkout, Metrics metrics, Log logger) throws IOException, application.IOException {
+        if (this.isCurrent(checkout)) {
+            // keep the subdirectories checked out by the other executions, that may still scan them
+            this.checkedOutRuleSubdirectories.addAll(checkout.ruleSubdirectories());
+        }
+
+        var checkedOutRevision = checkout == null ? null : checkout.revision();
+
+        if (this.sparseCheckout && !this.isCheckedOut(ruleSubdirectory, checkout)) {
+            var timer = metrics.time("clone");
+
+            try {
+                checkedOutRevision = this.checkOut(ruleSubdirectory, logger);
+            } finally {
+                timer.close();
+            }
+        }
+
+        if (!this.sparseCheckout) {
+            if (this.ruleMaker == null || (this.revision != null && !this.isCurrent(checkout))) {
+                this.ruleMaker = metrics.time("clone", () -> this.createRuleMaker(logger));
+            }
+
+            if (this.host != null) {
+                checkedOutRevision = metrics.time("clone", () -> this.host.checkout(this.clonePath(), this.revision));
+            }
+        }
+
+        if (this.host != null) {
+            this.checkedOutRevision = checkedOutRevision;
+            this.writeCheckout(checkedOutRevision);
+        }
+    }
+
+    private List<RuleFiles> scanClone(String ruleSubdirectory, Metrics metrics) {
+        var ruleFiles = metrics.time("scan", () -> this.ruleMaker.getRulesByRuleSubdirectory(ruleSubdirectory));
+
+        metrics.count("scan", Metrics.RULES, ruleFiles.size());
+
+        return ruleFiles;
+    }
+
+    private List<String> scanCheckout(RuleTree ruleTree, String ruleSubdirectory, Metrics metrics) {
+        List<String> ruleKeys;
+
+        try {
+            ruleKeys = metrics.time("scan", () -> ruleTree.getRuleKeys(ruleSubdirectory));
+        } catch (application.IOException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+
+        metrics.count("scan", Metrics.RULES, ruleKeys.size());
+
+        return ruleKeys;
+    }
+
+    /**
+     * @return Whether the passed checkout holds the passed rule subdirectory at the requested commit
+     */
+    private boolean isCheckedOut(String ruleSubdirectory, Checkout checkout) {
+        return this.isCurrent(checkout) && (!this.sparseCheckout || checkout.ruleSubdirectories().contains(ruleSubdirectory));
+    }
+
+    /**
+     * @return Whether the passed checkout is at the requested commit - or, if it is unknown, at the one this instance last checked the clone out at
+     */
+    private boolean isCurrent(Checkout checkout) {
+        return checkout != null && checkout.revision().equals(this.revision == null ? this.checkedOutRevision : this.revision);
+    }
+
+    /**
+     * The clone is locked through a sibling file, so that locking it doesn't require it to exist.
+     */
+    private Host.Lock lock(boolean shared) throws application.IOException {
+        return this.host.lock(this.clonePath() + ".lock", shared);
+    }
+
+    /**
+     * @return The checkout recorded by the last execution to update the clone, or null if there is none
+     */
+    private Checkout readCheckout() throws application.IOException {
+        var checkout = this.host.read(this.clonePath() + ".checkout");
+
+        if (checkout == null) {
+            return null;
+        }
+
+        var lines = checkout.split("\n");
+
+        return new Checkout(lines[0], Set.copyOf(Arrays.asList(lines).subList(1, lines.length)));
+    }
+
+    /**
+     * @param revision The commit the clone is checked out at, or null if it is unknown - in which case no execution can rely on the clone
+     */
+    private void writeCheckout(String revision) throws application.IOException {
+        if (revision == null) {
+            this.host.delete(this.clonePath() + ".checkout");
+
+            return;
+        }
+
+        var checkout = new StringBuilder(revision).append('\n');
+
+        for (var checkedOutRuleSubdirectory : this.checkedOutRuleSubdirectories) {
+            checkout.append(checkedOutRuleSubdirectory).append('\n');
+        }
+
+        this.host.write(this.clonePath() + ".checkout", checkout.toString());
+    }
+
+    /**
+     * The commit the clone was last updated to, with the rule subdirectories it was checked out with - if it is a sparse checkout.
+     */
+    private record Checkout(String revision, Set<String> ruleSubdirectories) {
+    }
+
+    /**
+     * Check out the passed rule subdirectory at the requested commit, along with the ones checked out so far and the rule-level files they inherit from - metadata and shared descriptions.
+     *
+     * @return The commit checked out
+     */
+    private String checkOut(String ruleSubdirectory, Log logger) {
+        this.checkedOutRuleSubdirectories.add(ruleSubdirectory);
+
+        var patterns = new ArrayList<>(List.of(
+                "/*",
+                "!/*/",
+                "/shared_content/",
+                "/rules/*/*.json",
+                "/rules/*/*.adoc"
+        ));
+
+        for (var checkedOutRuleSubdirectory : this.checkedOutRuleSubdirectories) {
+            patterns.add(String.format("/rules/*/%s/", checkedOutRuleSubdirectory));
+        }
+
+        logger.info(String.format(
+                "Checking out rule subdirectories %s of repository %s, branch %s",
+                String.join(", ", this.checkedOutRuleSubdirectories),
+                this.url,
+                this.branchName
+        ));
+
+        try {
+            return this.host.checkoutSparse(this.url, this.branchName, this.revision, this.clonePath(), patterns);
+        } catch (application.IOException e) {
+            // forget the subdirectory, so that the next call tries again
+            this.checkedOutRuleSubdirectories.remove(ruleSubdirectory);
+
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+}
@@ -1,170 +1,159 @@
 package application;
 
 import com.google.gson.JsonElement;
-import com.sonarsource.ruleapi.domain.Profile;
-import com.sonarsource.ruleapi.domain.RuleFiles;
+import com.google.gson.JsonObject;
 import domain.Code;
 import domain.Parameter;
 import domain.Remediation;
 import domain.Rule;
+import domain.RuleFilter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Materializes rules from their files - as read by rule-api, or from a sparse checkout - reading every value once.
+ * The resulting rules don't retain the JSON manifest, and the values shared by many rules - types, severities, tags... - are interned.
+ */
 public class RuleFactory {
-    static Rule create(String languageKey, RuleFiles ruleFile) {
-        var manifest = ruleFile.getMetadata();
-        var name = ruleFile.getKey();
-        var htmlDocumentation = ruleFile.getDescription();
+    /**
+     * @return The rule, or null if the passed filter rejects it - in which case neither its description nor its quality profiles are read
+     */
+    static Rule create(String languageKey, RuleFile ruleFile, RuleFilter filter) {
+        var manifest = ruleFile.manifest();
+
+        if (!accepts(languageKey, ruleFile.key(), manifest, filter)) {
+            return null;
+        }
 
-        var rawCompatibleLanguages = manifest.get("compatibleLanguages");
-        var compatibleLanguages = rawCompatibleLanguages == null ? List.of(languageKey) : rawCompatibleLanguages.getAsJsonArray().asList().stream().map(JsonElement::getAsString).toList();
+        return create(
+                languageKey,
+                ruleFile.key(),
+                manifest,
+                ruleFile.description(),
+                ruleFile.qualityProfiles()
+        );
+    }
 
-        var tags = manifest.get("tags");
+    /**
+     * @return Whether the passed filter accepts the rule of the passed manifest, judging by the manifest alone
+     */
+    static boolean accepts(String languageKey, String key, JsonObject manifest, RuleFilter filter) {
+        return filter.accepts(key, compatibleLanguages(languageKey, manifest), string(manifest, "status"));
+    }
 
-        Map<String, String> impacts = new HashMap<>();
+    static Rule create(String languageKey, String key, JsonObject manifest, String description, List<String> rawQualityProfiles) {
+        var compatibleLanguages = compatibleLanguages(languageKey, manifest);
+
+        var rawTags = manifest.get("tags");
+        var tags = rawTags == null ? List.<String>of() : strings(rawTags);
+
+        var rawScope = string(manifest, "scope");
+        var scope = rawScope == null ? null : intern(rawScope.equals("Tests") ? "TEST" : rawScope.toUpperCase());
+
+        var rawDefaultSeverity = string(manifest, "defaultSeverity");
+        var defaultSeverity = rawDefaultSeverity == null ? null : intern(rawDefaultSeverity.toUpperCase());
+
+        var qualityProfiles = rawQualityProfiles.stream().map(RuleFactory::intern).toList();
+
+        return new Rule(
+                key,
+                description,
+                intern(string(manifest, "type")),
+                defaultSeverity,
+                tags,
+                scope,
+                remediation(manifest),
+                string(manifest, "title"),
+                parameters(manifest),
+                compatibleLanguages,
+                qualityProfiles,
+                intern(string(manifest, "status")),
+                code(manifest)
+        );
+    }
 
-        var rawCode = manifest.get("code");
+    private static List<String> compatibleLanguages(String languageKey, JsonObject manifest) {
+        var rawCompatibleLanguages = manifest.get("compatibleLanguages");
 
-        Code code;
+        return rawCompatibleLanguages == null ? List.of(languageKey) : strings(rawCompatibleLanguages);
+    }
 
-        if (rawCode != null) {
-          var rawImpacts = rawCode.getAsJsonObject().get("impacts").getAsJsonObject();
+    private static Code code(JsonObject manifest) {
+        var rawCode = manifest.get("code");
 
-          for (var impact : rawImpacts.entrySet()) {
-            impacts.put(impact.getKey(), impact.getValue().getAsString());
-          }
+        if (rawCode == null) {
+            return null;
+        }
 
-          code = new Code() {
-            public Map<String, String> impacts() {
-              return impacts;
-            }
+        var codeAsJsonObject = rawCode.getAsJsonObject();
+        var impacts = new HashMap<String, String>();
 
-            public String attribute() {
-              return rawCode.getAsJsonObject().get("attribute").getAsString();
-            }
-          };
+        for (var impact : codeAsJsonObject.get("impacts").getAsJsonObject().entrySet()) {
+            impacts.put(intern(impact.getKey()), intern(impact.getValue().getAsString()));
         }
-        else {
-          code = null;
+
+        // not Map.copyOf, whose iteration order - and thus the generated code - would change from one run to another
+        return new Code(Collections.unmodifiableMap(impacts), intern(string(codeAsJsonObject, "attribute")));
+    }
+
+    private static Remediation remediation(JsonObject manifest) {
+        var rawRemediation = manifest.get("remediation");
+
+        if (rawRemediation == null) {
+            return null;
         }
 
-        var rawScope = manifest.get("scope").getAsString();
+        var remediationAsJsonObject = rawRemediation.getAsJsonObject();
+
+        return new Remediation(
+                intern(string(remediationAsJsonObject, "func")),
+                intern(string(remediationAsJsonObject, "constantCost")),
+                intern(string(remediationAsJsonObject, "linearFactor")),
+                intern(string(remediationAsJsonObject, "linearOffset")),
+                string(remediationAsJsonObject, "linearDesc")
+        );
+    }
+
+    private static List<Parameter> parameters(JsonObject manifest) {
         var rawParameters = manifest.get("parameters");
 
+        if (rawParameters == null) {
+            return List.of();
+        }
+
         var parameters = new ArrayList<Parameter>();
 
-        if (rawParameters != null) {
-            rawParameters.getAsJsonArray().asList().forEach(rawValue -> {
-                // todo: add a factory
-                var value = rawValue.getAsJsonObject();
-
-                parameters.add(new Parameter() {
-                    public String name() {
-                        return value.get("name").getAsString();
-                    }
-
-                    public String description() {
-                        return value.get("description").getAsString();
-                    }
-
-                    public String type() {
-                        return value.get("type").getAsString();
-                    }
-
-                    public String defaultValue() {
-                        return value.get("defaultValue").getAsString();
-                    }
-                });
-            });
+        for (var rawValue : rawParameters.getAsJsonArray()) {
+            var value = rawValue.getAsJsonObject();
+
+            parameters.add(new Parameter(
+                    string(value, "name"),
+                    string(value, "description"),
+                    intern(string(value, "type")),
+                    string(value, "defaultValue")
+            ));
         }
 
-        return new Rule() {
-            public String name() {
-                return name;
-            }
-
-            public String htmlDocumentation() {
-                return htmlDocumentation;
-            }
-
-            public String type() {
-                return manifest.get("type").getAsString();
-            }
-
-            public String defaultSeverity() {
-                return manifest.get("defaultSeverity").getAsString().toUpperCase();
-            }
-
-            public List<String> tags() {
-                return tags != null ? tags.getAsJsonArray().asList().stream().map(JsonElement::getAsString).toList() : List.of();
-            }
-
-            public String scope() {
-                return rawScope.equals("Tests") ? "TEST" : rawScope.toUpperCase();
-            }
-
-            public Remediation remediation() {
-                var rawRemediation = manifest.get("remediation");
-
-                if (rawRemediation != null) {
-                    var remediationAsJsonObject = rawRemediation.getAsJsonObject();
-                    var rawCost = remediationAsJsonObject.get("constantCost");
-                    var rawLinearFactor = remediationAsJsonObject.get("linearFactor");
-                    var rawLinearOffset = remediationAsJsonObject.get("linearOffset");
-                    var rawLinearDescription = remediationAsJsonObject.get("linearDesc");
-
-                    return new Remediation() {
-                        public String function() {
-                            return remediationAsJsonObject.get("func").getAsString();
-                        }
-
-                        public String cost() {
-                            return rawCost != null ? rawCost.getAsString() : null;
-                        }
-
-                        public String linearFactor() {
-                            return rawLinearFactor != null ? rawLinearFactor.getAsString() : null;
-                        }
-
-                        public String linearOffset() {
-                            return rawLinearOffset != null ? rawLinearOffset.getAsString() : null;
-                        }
-
-                        public String linearDescription() {
-                            return rawLinearDescription != null ? rawLinearDescription.getAsString() : null;
-                        }
-                    };
-                }
-
-                return null;
-            }
-
-            public String title() {
-                return manifest.get("title").getAsString();
-            }
-
-            public List<Parameter> parameters() {
-                return parameters;
-            }
-
-            public List<String> compatibleLanguages() {
-                return compatibleLanguages;
-            }
-
-            public List<String> qualityProfiles() {
-                return ruleFile.getQualityProfiles().stream().map(Profile::getName).toList();
-            }
-
-            public String status() {
-              return manifest.get("status").getAsString();
-            }
-
-            public Code code() {
-              return code;
-            }
-        };
+        return List.copyOf(parameters);
+    }
+
+    private static List<String> strings(JsonElement array) {
+        return array.getAsJsonArray().asList().stream().map(JsonElement::getAsString).map(RuleFactory::intern).toList();
+    }
+
+    /**
+     * @return The value of the passed `property` of the passed `object`, or null if it is absent
+     */
+    private static String string(JsonObject object, String property) {
+        var value = object.get(property);
+
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
     }
 }
@@ -0,0 +1,44 @@
+package application;
+
+import com.google.gson.JsonObject;
+import com.sonarsource.ruleapi.domain.Profile;
+import com.sonarsource.ruleapi.domain.RuleFiles;
+
+import java.util.List;
+
+/**
+ * The files of a rule, in a rule subdirectory: its manifest, its description and the quality profiles it belongs to by default.
+ * The description is only read when requested, so that a rule can be rejected on its manifest alone.
+ */
+interface RuleFile {
+    String key();
+
+    JsonObject manifest();
+
+    String description();
+
+    List<String> qualityProfiles();
+
+    /**
+     * @return The passed rule files, as scanned by rule-api from a full clone
+     */
+    static RuleFile of(RuleFiles ruleFiles) {
+        return new RuleFile() {
+            public String key() {
+                return ruleFiles.getKey();
+            }
+
+            public JsonObject manifest() {
+                return ruleFiles.getMetadata();
+            }
+
+            public String description() {
+                return ruleFiles.getDescription();
+            }
+
+            public List<String> qualityProfiles() {
+                return ruleFiles.getQualityProfiles().stream().map(Profile::getName).toList();
+            }
+        };
+    }
+}
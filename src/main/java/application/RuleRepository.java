@@ -1,47 +1,186 @@
 package application;
 
-import com.sonarsource.ruleapi.domain.RuleFiles;
-import com.sonarsource.ruleapi.github.GitClone;
-import com.sonarsource.ruleapi.github.GitHubRuleMaker;
-import com.sonarsource.ruleapi.utilities.RuleApiCache;
+import domain.Metrics;
 import domain.Rule;
+import domain.RuleData;
+import domain.RuleFilter;
 import org.apache.maven.plugin.logging.Log;
 
-import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
+/**
+ * The rules of a rule clone, as read by an execution: with its own worker threads, rule cache, metrics and logger.
+ * The clone - and the rules materialized from it - may be shared with other executions, but an instance of this class never is.
+ */
 public class RuleRepository implements domain.RuleRepository {
-    private final GitHubRuleMaker ruleMaker;
+    private final RuleClone clone;
+    private final Parallel parallel;
+    private final RuleCache ruleCache;
+    private final String baseRevision;
+    private final Metrics metrics;
+    private final Log logger;
 
-    public RuleRepository(String url, String branchName, Log logger) throws IOException {
-        /**
-         * Unfortunately, GitHubRuleMaker clones the repository during its creation.
-         * Thus, we need to log as soon as we create it.
-         */
-        logger.info(String.format("Cloning repository %s, branch %s", url, branchName));
+    /**
+     * @param clone The clone the rules are read from
+     * @param parallel The worker threads of the execution, that rules are materialized on
+     * @param ruleCache The cache of the materialized rules, or null to materialize them on every execution
+     * @param baseRevision The commit the rules were last materialized from, or null to materialize every rule. Otherwise, only the rules that changed since that commit
+     *                     are materialized, the other ones being read from the rules cached for it. It only applies with a rule cache, and falls back to materializing
+     *                     every rule when the rules of the commit are not cached, or when the changes since the commit can't be listed
+     * @param metrics The metrics the phases of the requests - "clone", "scan", "cache" and "materialize" - are recorded into;
+     *                since materialized rules are shared with the other executions reading the clone, a phase is only recorded by the execution that actually ran it
+     */
+    public RuleRepository(RuleClone clone, Parallel parallel, RuleCache ruleCache, String baseRevision, Metrics metrics, Log logger) {
+        this.clone = clone;
+        this.parallel = parallel;
+        this.ruleCache = ruleCache;
+        this.baseRevision = baseRevision;
+        this.metrics = metrics;
+        this.logger = logger;
+    }
 
-        var cacheKey = url
-                .replaceAll(":", "_")
-                .replaceAll("/", "_");
+    /**
+     * A sparse checkout is read one rule at a time, as the stream is consumed, while a full clone is scanned by the rule API as a whole, and held until the stream is consumed.
+     * The returned stream must be closed.
+     *
+     * @see RuleClone#stream
+     */
+    public Stream<RuleData> streamRuleManifestsByRuleSubdirectory(String ruleSubdirectory, RuleFilter filter) {
+        return this.streamRuleFilesByRuleSubdirectory(ruleSubdirectory)
+                .filter(ruleFile -> RuleFactory.accepts(ruleSubdirectory, ruleFile.key(), ruleFile.manifest(), filter))
+                .map(ruleFile -> new RuleData(
+                        ruleFile.key(),
+                        ruleFile.manifest().toString(),
+                        ruleFile.description()
+                ));
+    }
 
+    public List<String> getRuleKeysByRuleSubdirectory(String ruleSubdirectory) {
+        return this.clone.getRuleKeys(ruleSubdirectory, this.metrics, this.logger);
+    }
 
-        logger.debug(String.format("Git repository cache key is %s", cacheKey));
+    /**
+     * @see RuleClone#getChangedRuleKeys
+     */
+    public Set<String> getChangedRuleKeys(String ruleSubdirectory, String fromRevision, String toRevision) {
+        return this.clone.getChangedRuleKeys(ruleSubdirectory, fromRevision, toRevision, this.metrics, this.logger);
+    }
 
-        var gitClone = new GitClone(url, RuleApiCache.getCachePath().resolve(cacheKey), branchName);
+    /**
+     * The rule files of a subdirectory are read on every call, and only held by the caller: they are never retained, not even by the execution.
+     * The returned stream must be closed.
+     */
+    Stream<RuleFile> streamRuleFilesByRuleSubdirectory(String ruleSubdirectory) {
+        return this.clone.stream(ruleSubdirectory, this.metrics, this.logger);
+    }
 
-        this.ruleMaker = new GitHubRuleMaker(gitClone);
+    /**
+     * The rules of a language that pass a filter are materialized once, by the first caller, and shared with every subsequent - or concurrent - caller,
+     * whatever the execution reading the clone.
+     */
+    public List<Rule> getRulesByLanguage(String languageKey, RuleFilter filter) {
+        return this.clone.getRules(languageKey + "\n" + filter, () -> this.materializeRules(languageKey, filter));
     }
 
-    public List<RuleFiles> getRuleManifestsByRuleSubdirectory(String ruleSubdirectory) {
-        return this.ruleMaker.getRulesByRuleSubdirectory(ruleSubdirectory);
+    /**
+     * Materialize the rules of the passed language that pass the passed filter; the filter is applied to the manifest of a rule, before its description is read.
+     */
+    private List<Rule> materializeRules(String languageKey, RuleFilter filter) {
+        if (this.ruleCache != null) {
+            var cachedRules = this.metrics.time("cache", () -> this.ruleCache.read(languageKey, filter));
+
+            if (cachedRules != null) {
+                this.metrics.count("cache", Metrics.RULES, cachedRules.size());
+                this.logger.info(String.format("Loaded %d %s rule(s) from the rule cache", cachedRules.size(), languageKey));
+
+                return cachedRules;
+            }
+        }
+
+        // the changes are listed before the clone is read, since it can't be updated while it is
+        var baseRules = this.baseRules(languageKey, filter);
+        var reusedRuleCount = new AtomicInteger();
+        var callingThread = Thread.currentThread();
+        List<Rule> rules;
+
+        try (var ruleFiles = this.streamRuleFilesByRuleSubdirectory(languageKey)) {
+            rules = this.metrics.time("materialize", () -> this.parallel.map(ruleFiles.toList(), ruleFile -> {
+                if (baseRules != null && !baseRules.changedRuleKeys().contains(ruleFile.key())) {
+                    // unchanged since the base commit: the rule is the one materialized from it - or null if the filter rejected it then, as it still does
+                    var baseRule = baseRules.rulesByKey().get(ruleFile.key());
+
+                    if (baseRule != null) {
+                        reusedRuleCount.incrementAndGet();
+                    }
+
+                    return baseRule;
+                }
+
+                if (Thread.currentThread() == callingThread) {
+                    return RuleFactory.create(languageKey, ruleFile, filter);
+                }
+
+                // the CPU time of the worker threads is not accounted for by the timer of the calling thread
+                return this.metrics.timeCpu("materialize", () -> RuleFactory.create(languageKey, ruleFile, filter));
+            }).stream().filter(Objects::nonNull).toList());
+        }
+
+        this.metrics.count("materialize", Metrics.RULES, rules.size());
+        this.metrics.count("materialize", Metrics.REUSED_RULES, reusedRuleCount.get());
+
+        if (this.ruleCache != null) {
+            var timer = this.metrics.time("cache");
+
+            try {
+                this.ruleCache.write(languageKey, filter, rules);
+            } catch (application.IOException e) {
+                // the cache only saves time to the next executions; failing to write it doesn't fail this one
+                this.logger.warn(String.format("Failed to cache the %s rules: %s", languageKey, e.getMessage()));
+            } finally {
+                timer.close();
+            }
+        }
+
+        return rules;
     }
 
-    public List<Rule> getRulesByLanguage(String languageKey) {
-        var ruleManifests = this.getRuleManifestsByRuleSubdirectory(languageKey);
+    /**
+     * @return The rules materialized from the base commit, with the keys of the rules changed since, or null if they can't be reused
+     */
+    private BaseRules baseRules(String languageKey, RuleFilter filter) {
+        if (this.ruleCache == null || this.baseRevision == null || this.ruleCache.getRevision() == null) {
+            return null;
+        }
+
+        var rules = this.metrics.time("cache", () -> this.ruleCache.withRevision(this.baseRevision).read(languageKey, filter));
+
+        if (rules == null) {
+            return null;
+        }
+
+        var changedRuleKeys = this.getChangedRuleKeys(languageKey, this.baseRevision, this.ruleCache.getRevision());
+
+        if (changedRuleKeys == null) {
+            return null;
+        }
+
+        var rulesByKey = new HashMap<String, Rule>();
+
+        for (var rule : rules) {
+            rulesByKey.put(rule.name(), rule);
+        }
+
+        this.logger.info(String.format("%d %s rule(s) changed since %s", changedRuleKeys.size(), languageKey, this.baseRevision));
+
+        return new BaseRules(rulesByKey, changedRuleKeys);
+    }
 
-        return ruleManifests.stream().map(ruleManifest -> RuleFactory.create(
-                languageKey,
-                ruleManifest
-        )).toList();
+    private record BaseRules(Map<String, Rule> rulesByKey, Set<String> changedRuleKeys) {
     }
 }
@@ -0,0 +1,62 @@
+package application;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the rule clones - along with the rules already materialized from them - for the lifetime of the plugin class loader.
+ * Maven shares that class loader between the modules of a reactor, and a Maven daemon between consecutive builds,
+ * so that only the first execution for a given commit pays for the clone and the parsing.
+ * <p>
+ * A clone is keyed by everything it is made of - its URL, branch, commit and whether it is a sparse checkout - and holds nothing of the executions reading it,
+ * that pass their own threads, rule cache, metrics and logger to the RuleRepository they read it through.
+ * <p>
+ * Clones are only softly referenced, so that the garbage collector reclaims them under memory pressure,
+ * and at most {@value MAXIMUM_SIZE} of them are kept, the least recently used one being evicted first.
+ * A clone is also evicted as soon as its branch is requested at another commit.
+ */
+public class RuleRepositoryCache {
+    private static final int MAXIMUM_SIZE = 4;
+
+    private record Key(String url, String branchName, String revision, boolean sparseCheckout) {
+    }
+
+    public interface Factory {
+        RuleClone create();
+    }
+
+    private static final Map<Key, SoftReference<RuleClone>> clones = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<RuleClone>> eldest) {
+            return this.size() > MAXIMUM_SIZE;
+        }
+    };
+
+    /**
+     * Get the clone of the passed branch at the passed revision, creating it with the passed `factory` if it is not cached.
+     * Concurrent executions requesting the same clone wait for the first one to create it.
+     *
+     * @param revision The commit the branch points to, or null if it is unknown - in which case the clone is not cached
+     * @param sparseCheckout Whether the clone is a sparse checkout
+     */
+    public static synchronized RuleClone get(String url, String branchName, String revision, boolean sparseCheckout, Factory factory) {
+        if (revision == null) {
+            return factory.create();
+        }
+
+        var key = new Key(url, branchName, revision, sparseCheckout);
+        var reference = clones.get(key);
+        var clone = reference == null ? null : reference.get();
+
+        if (clone == null) {
+            clones.keySet().removeIf(cachedKey -> cachedKey.url().equals(url) && cachedKey.branchName().equals(branchName) && !cachedKey.revision().equals(revision));
+
+            clone = factory.create();
+
+            clones.put(key, new SoftReference<>(clone));
+        }
+
+        return clone;
+    }
+}
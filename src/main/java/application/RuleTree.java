@@ -0,0 +1,98 @@
+package application;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rules of a checkout of the rule repository, read directly from its files - unlike rule-api, that requires a full clone.
+ * <p>
+ * A rule is a directory of `rules`, named after its key, that holds:
+ * <ul>
+ *     <li>its generic `metadata.json`</li>
+ *     <li>one subdirectory per language, with a `metadata.json` overriding the generic one property by property,
+ *     and a `rule.adoc` description - that includes the generic descriptions of the rule and the shared content of the repository</li>
+ * </ul>
+ */
+class RuleTree {
+    private final Host host;
+    private final String directory;
+
+    /**
+     * @param directory The absolute path of the root directory of the checkout
+     */
+    RuleTree(Host host, String directory) {
+        this.host = host;
+        this.directory = directory;
+    }
+
+    /**
+     * @return The keys of the rules that have the passed subdirectory, sorted
+     */
+    List<String> getRuleKeys(String ruleSubdirectory) throws IOException {
+        var rulesDirectory = this.host.resolve(this.directory, "rules");
+        var ruleKeys = new ArrayList<String>();
+
+        for (var ruleKey : this.host.list(rulesDirectory)) {
+            if (this.host.exists(this.host.resolve(rulesDirectory, ruleKey, ruleSubdirectory, "metadata.json"))) {
+                ruleKeys.add(ruleKey);
+            }
+        }
+
+        return ruleKeys;
+    }
+
+    /**
+     * Read the manifest of the rule of the passed key in the passed subdirectory; its description is only read - and converted to HTML - when requested.
+     */
+    RuleFile read(String ruleKey, String ruleSubdirectory) {
+        var ruleDirectory = this.host.resolve(this.directory, "rules", ruleKey);
+        var manifest = this.readManifest(this.host.resolve(ruleDirectory, "metadata.json"));
+
+        for (var property : this.readManifest(this.host.resolve(ruleDirectory, ruleSubdirectory, "metadata.json")).entrySet()) {
+            manifest.add(property.getKey(), property.getValue());
+        }
+
+        var rawQualityProfiles = manifest.get("defaultQualityProfiles");
+        var qualityProfiles = rawQualityProfiles == null
+                ? List.<String>of()
+                : rawQualityProfiles.getAsJsonArray().asList().stream().map(JsonElement::getAsString).toList();
+
+        return new Files(ruleKey, manifest, qualityProfiles, this.host, this.host.resolve(ruleDirectory, ruleSubdirectory, "rule.adoc"), this.directory);
+    }
+
+    /**
+     * @return The manifest of the passed file, or an empty one if the file doesn't exist
+     */
+    private JsonObject readManifest(String filePath) {
+        String manifest;
+
+        try {
+            manifest = this.host.read(filePath);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to read %s", filePath));
+        }
+
+        return manifest == null ? new JsonObject() : JsonParser.parseString(manifest).getAsJsonObject();
+    }
+
+    /**
+     * @param directory The root directory of the checkout, that the includes of the description can't reach outside of
+     */
+    private record Files(String key, JsonObject manifest, List<String> qualityProfiles, Host host, String descriptionFilePath, String directory) implements RuleFile {
+        public String description() {
+            String description;
+
+            try {
+                description = this.host.convertAsciiDoc(this.descriptionFilePath, this.directory);
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage());
+            }
+
+            return description == null ? "" : description;
+        }
+    }
+}
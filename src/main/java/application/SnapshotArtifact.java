@@ -0,0 +1,59 @@
+package application;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+
+import java.util.List;
+
+/**
+ * Locates the rule snapshot an execution reads its rules from, if any.
+ */
+public class SnapshotArtifact {
+    /**
+     * @param snapshotFile The path of a local snapshot, or null
+     * @param snapshotArtifact The coordinates of a snapshot artifact - groupId:artifactId[:extension[:classifier]]:version - or null
+     * @return The path of the snapshot file, resolving the artifact through the passed repositories if needed, or null if no snapshot is configured
+     */
+    public static String locate(
+            String snapshotFile,
+            String snapshotArtifact,
+            RepositorySystem repositorySystem,
+            RepositorySystemSession repositorySystemSession,
+            List<RemoteRepository> remoteRepositories
+    ) throws MojoExecutionException {
+        if (snapshotFile != null && snapshotArtifact != null) {
+            throw new MojoExecutionException("snapshotFile and snapshotArtifact are mutually exclusive");
+        }
+
+        if (snapshotArtifact == null) {
+            return snapshotFile;
+        }
+
+        DefaultArtifact artifact;
+
+        try {
+            artifact = new DefaultArtifact(snapshotArtifact);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(String.format("Invalid snapshot artifact coordinates %s", snapshotArtifact), e);
+        }
+
+        // snapshots are zip archives unless the coordinates say otherwise
+        if (snapshotArtifact.split(":").length == 3) {
+            artifact = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "zip", artifact.getVersion());
+        }
+
+        try {
+            return repositorySystem.resolveArtifact(
+                    repositorySystemSession,
+                    new ArtifactRequest(artifact, remoteRepositories, null)
+            ).getArtifact().getFile().getAbsolutePath();
+        } catch (ArtifactResolutionException e) {
+            throw new MojoExecutionException(String.format("Failed to resolve snapshot artifact %s", snapshotArtifact), e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package application;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import domain.Rule;
+import domain.RuleData;
+import domain.RuleFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads rules from a snapshot archive exported from a clone of the rule repository, so that no clone is needed.
+ * <p>
+ * The archive holds:
+ * <ul>
+ *     <li>a `META-INF/rspec-snapshot.json` descriptor, with the URL, branch and commit the snapshot was exported from</li>
+ *     <li>for every exported rule subdirectory, an `index.json` listing the keys and quality profiles of its rules, in the order of the clone</li>
+ *     <li>for every rule of a subdirectory, its `&lt;key&gt;.json` manifest and `&lt;key&gt;.html` description</li>
+ * </ul>
+ * Entries are read on demand, so that only the requested subdirectory is ever read from the archive.
+ */
+public class SnapshotRuleRepository implements domain.RuleRepository, AutoCloseable {
+    private static final String DESCRIPTOR_ENTRY_NAME = "META-INF/rspec-snapshot.json";
+    private static final int FORMAT_VERSION = 1;
+
+    private final Host.Archive archive;
+    private final String revision;
+
+    private SnapshotRuleRepository(Host.Archive archive, String revision) {
+        this.archive = archive;
+        this.revision = revision;
+    }
+
+    /**
+     * Open the snapshot archive located at the passed `filePath`.
+     */
+    public static SnapshotRuleRepository open(Host host, String filePath) throws IOException {
+        var archive = host.openArchive(filePath);
+
+        try {
+            var descriptor = archive.read(DESCRIPTOR_ENTRY_NAME);
+
+            if (descriptor == null) {
+                throw new IOException(String.format("%s is not a rule snapshot", filePath));
+            }
+
+            var descriptorAsJsonObject = JsonParser.parseString(descriptor).getAsJsonObject();
+
+            if (descriptorAsJsonObject.get("formatVersion").getAsInt() != FORMAT_VERSION) {
+                throw new IOException(String.format("Rule snapshot %s has an unsupported format version", filePath));
+            }
+
+            var revision = descriptorAsJsonObject.get("revision");
+
+            return new SnapshotRuleRepository(archive, revision == null || revision.isJsonNull() ? null : revision.getAsString());
+        } catch (IOException e) {
+            archive.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Export the passed rule subdirectories of the passed repository into a snapshot archive located at the passed `filePath`.
+     *
+     * @param revision The commit the repository was cloned at, or null if it is unknown
+     * @return The number of exported rules
+     */
+    public static int export(
+            Host host,
+            String filePath,
+            RuleRepository repository,
+            String url,
+            String branchName,
+            String revision,
+            List<String> ruleSubdirectories
+    ) throws IOException {
+        var exportedRuleCount = 0;
+
+        try (var output = host.createArchive(filePath)) {
+            var descriptor = new JsonObject();
+            var exportedRuleSubdirectories = new JsonArray();
+
+            ruleSubdirectories.forEach(exportedRuleSubdirectories::add);
+
+            descriptor.addProperty("formatVersion", FORMAT_VERSION);
+            descriptor.addProperty("url", url);
+            descriptor.addProperty("branch", branchName);
+            descriptor.addProperty("revision", revision);
+            descriptor.add("ruleSubdirectories", exportedRuleSubdirectories);
+
+            output.add(DESCRIPTOR_ENTRY_NAME, descriptor.toString());
+
+            for (var ruleSubdirectory : ruleSubdirectories) {
+                var index = new JsonArray();
+
+                try (var ruleFiles = repository.streamRuleFilesByRuleSubdirectory(ruleSubdirectory)) {
+                    var iterator = ruleFiles.iterator();
+
+                    while (iterator.hasNext()) {
+                        var ruleFile = iterator.next();
+                        var entry = new JsonObject();
+                        var qualityProfiles = new JsonArray();
+
+                        ruleFile.qualityProfiles().forEach(qualityProfiles::add);
+
+                        entry.addProperty("key", ruleFile.key());
+                        entry.add("qualityProfiles", qualityProfiles);
+                        index.add(entry);
+
+                        output.add(entryName(ruleSubdirectory, ruleFile.key() + ".json"), ruleFile.manifest().toString());
+                        output.add(entryName(ruleSubdirectory, ruleFile.key() + ".html"), ruleFile.description());
+
+                        exportedRuleCount++;
+                    }
+                }
+
+                output.add(entryName(ruleSubdirectory, "index.json"), index.toString());
+            }
+
+            output.commit();
+        }
+
+        return exportedRuleCount;
+    }
+
+    /**
+     * @return The commit the snapshot was exported from, or null if it is unknown
+     */
+    public String getRevision() {
+        return this.revision;
+    }
+
+    /**
+     * The description of a rule is only read from the archive if the passed filter accepts its manifest.
+     */
+    public List<Rule> getRulesByLanguage(String languageKey, RuleFilter filter) {
+        var rules = new ArrayList<Rule>();
+
+        for (var entry : this.index(languageKey)) {
+            var entryAsJsonObject = entry.getAsJsonObject();
+            var key = entryAsJsonObject.get("key").getAsString();
+
+            if (filter.ruleKeys() != null && !filter.ruleKeys().contains(key)) {
+                // not even worth reading the manifest
+                continue;
+            }
+
+            var manifest = JsonParser.parseString(this.read(entryName(languageKey, key + ".json"))).getAsJsonObject();
+
+            if (!RuleFactory.accepts(languageKey, key, manifest, filter)) {
+                continue;
+            }
+
+            var qualityProfiles = entryAsJsonObject.get("qualityProfiles").getAsJsonArray().asList().stream().map(JsonElement::getAsString).toList();
+
+            rules.add(RuleFactory.create(
+                    languageKey,
+                    key,
+                    manifest,
+                    this.read(entryName(languageKey, key + ".html")),
+                    qualityProfiles
+            ));
+        }
+
+        return rules;
+    }
+
+    /**
+     * The entries of a rule are only read from the archive as the stream is consumed, so that only the index of the subdirectory is held in memory.
+     */
+    public Stream<RuleData> streamRuleManifestsByRuleSubdirectory(String ruleSubdirectory, RuleFilter filter) {
+        return this.getRuleKeysByRuleSubdirectory(ruleSubdirectory).stream()
+                // not even worth reading the manifest
+                .filter(key -> filter.ruleKeys() == null || filter.ruleKeys().contains(key))
+                .<RuleData>mapMulti((key, ruleManifests) -> {
+                    var manifest = this.read(entryName(ruleSubdirectory, key + ".json"));
+
+                    if (RuleFactory.accepts(ruleSubdirectory, key, JsonParser.parseString(manifest).getAsJsonObject(), filter)) {
+                        ruleManifests.accept(new RuleData(key, manifest, this.read(entryName(ruleSubdirectory, key + ".html"))));
+                    }
+                });
+    }
+
+    public List<String> getRuleKeysByRuleSubdirectory(String ruleSubdirectory) {
+        return this.index(ruleSubdirectory).asList().stream().map(entry -> entry.getAsJsonObject().get("key").getAsString()).toList();
+    }
+
+    public void close() {
+        this.archive.close();
+    }
+
+    private JsonArray index(String ruleSubdirectory) {
+        var index = this.read(entryName(ruleSubdirectory, "index.json"));
+
+        if (index == null) {
+            throw new IllegalStateException(String.format("The rule snapshot holds no %s rule subdirectory", ruleSubdirectory));
+        }
+
+        return JsonParser.parseString(index).getAsJsonArray();
+    }
+
+    private String read(String entryName) {
+        try {
+            return this.archive.read(entryName);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to read %s from the rule snapshot", entryName), e);
+        }
+    }
+
+    private static String entryName(String ruleSubdirectory, String fileName) {
+        return ruleSubdirectory + "/" + fileName;
+    }
+}
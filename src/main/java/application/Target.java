@@ -0,0 +1,89 @@
+package application;
+
+import java.util.List;
+
+/**
+ * The registrars to generate for a language, as configured in a `targets` element of the generate-registrars goal.
+ */
+public class Target {
+    private String languageKey;
+
+    private String compatibleLanguageKey;
+
+    private String repositoryKey;
+
+    private String packageName;
+
+    private String profileName = "Sonar way";
+
+    /**
+     * The quality profiles to define, replacing profileName when set.
+     */
+    private List<String> profileNames;
+
+    /**
+     * Whether to define every quality profile the rules belong to, replacing profileName and profileNames.
+     */
+    private boolean allProfiles;
+
+    public Target() {
+    }
+
+    Target(
+            String languageKey,
+            String compatibleLanguageKey,
+            String repositoryKey,
+            String packageName,
+            String profileName,
+            List<String> profileNames,
+            boolean allProfiles
+    ) {
+        this.languageKey = languageKey;
+        this.compatibleLanguageKey = compatibleLanguageKey;
+        this.repositoryKey = repositoryKey;
+        this.packageName = packageName;
+        this.profileName = profileName;
+        this.profileNames = profileNames;
+        this.allProfiles = allProfiles;
+    }
+
+    public String getLanguageKey() {
+        return this.languageKey;
+    }
+
+    public String getCompatibleLanguageKey() {
+        return this.compatibleLanguageKey;
+    }
+
+    public String getRepositoryKey() {
+        return this.repositoryKey;
+    }
+
+    public String getPackageName() {
+        return this.packageName;
+    }
+
+    /**
+     * @return The names of the quality profiles to define, or null to define every profile the rules belong to
+     */
+    public List<String> getProfileNames() {
+        if (this.allProfiles) {
+            return null;
+        }
+
+        return this.profileNames == null || this.profileNames.isEmpty() ? List.of(this.profileName) : this.profileNames;
+    }
+
+    boolean isComplete() {
+        return this.languageKey != null
+                && this.compatibleLanguageKey != null
+                && this.repositoryKey != null
+                && this.packageName != null
+                && (this.allProfiles || this.profileName != null || (this.profileNames != null && !this.profileNames.isEmpty()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s, %s)", this.repositoryKey, this.languageKey, this.compatibleLanguageKey);
+    }
+}
@@ -0,0 +1,190 @@
+package application;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Tells whether the outputs of a goal execution are still current, by comparing a fingerprint of its inputs
+ * with the one recorded by the last successful execution, in a state file stored in the build directory.
+ * The state also records when the commit of the rule repository was resolved, so that a recent enough commit can be trusted
+ * without contacting the remote again.
+ */
+public class UpToDateCheck {
+    private final Host host;
+    private final String stateFilePath;
+    private final String configuration;
+
+    /**
+     * @param host The host
+     * @param buildDirectory The build directory of the project, where the state file is stored
+     * @param goal The name of the goal
+     * @param targetDirectory The target directory of the execution, that identifies it among the executions of the same goal
+     * @param configuration The fingerprint of the inputs of the execution other than the commit of the rule repository: its configuration
+     */
+    public UpToDateCheck(Host host, String buildDirectory, String goal, String targetDirectory, String configuration) {
+        this.host = host;
+        this.stateFilePath = host.resolve(
+                buildDirectory,
+                "rspec-maven-plugin",
+                String.format("%s-%s.state", goal, fingerprint(targetDirectory).substring(0, 12))
+        );
+        this.configuration = configuration;
+    }
+
+    /**
+     * Compute the fingerprint of the passed components.
+     *
+     * @param components The components, null ones being allowed
+     * @return The hexadecimal SHA-256 digest of the components
+     */
+    public static String fingerprint(String... components) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+
+            for (var component : components) {
+                if (component != null) {
+                    digest.update(component.getBytes(StandardCharsets.UTF_8));
+                }
+
+                // separate the components so that ("ab", "c") and ("a", "bc") differ
+                digest.update((byte) 0);
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param revision The commit of the rule repository the execution generates from, or null if it is unknown - the inputs can't be fingerprinted then
+     * @return Whether the recorded fingerprint matches the current one and every recorded output still exists
+     */
+    public boolean isUpToDate(String revision) throws IOException {
+        if (revision == null) {
+            return false;
+        }
+
+        var lines = this.readState();
+
+        return lines != null && lines[0].equals(fingerprint(revision, this.configuration)) && this.outputsExist(lines);
+    }
+
+    /**
+     * Tell from which commit the last successful execution generated, when it is still current otherwise:
+     * to assume it when the remote is unreachable, or to only generate again the rules changed since.
+     *
+     * @return The recorded commit, or null if there is none, if the configuration changed since or if some recorded output is gone
+     */
+    public String getRecordedRevision() throws IOException {
+        var lines = this.readState();
+
+        return this.isCurrent(lines) ? lines[1] : null;
+    }
+
+    /**
+     * Tell from which commit the last successful execution generated, when that commit was resolved recently enough to be trusted
+     * without contacting the remote: the execution is then up to date, unless it is forced.
+     *
+     * @param now The current time, in milliseconds since the epoch
+     * @param maximumAge The age, in milliseconds, from which a resolved commit is no longer trusted
+     * @return The recorded commit, or null if there is none, if it was resolved more than `maximumAge` ago, or if the execution is stale otherwise
+     */
+    public String getRecentRevision(long now, long maximumAge) throws IOException {
+        var lines = this.readState();
+
+        if (!this.isCurrent(lines)) {
+            return null;
+        }
+
+        long resolvedAt;
+
+        try {
+            resolvedAt = Long.parseLong(lines[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        return resolvedAt > 0 && resolvedAt <= now && now - resolvedAt < maximumAge ? lines[1] : null;
+    }
+
+    /**
+     * @param revision The commit the execution generated from
+     * @return The commit the last successful execution generated from - see getRecordedRevision - or null if it is the passed one, or if the passed one is unknown
+     */
+    public String getIncrementalBase(String revision) throws IOException {
+        if (revision == null) {
+            return null;
+        }
+
+        var recordedRevision = this.getRecordedRevision();
+
+        return revision.equals(recordedRevision) ? null : recordedRevision;
+    }
+
+    /**
+     * @return The absolute paths of the files produced by the last successful execution - the output manifest - or null if they were not recorded
+     */
+    public List<String> getRecordedOutputs() throws IOException {
+        var lines = this.readState();
+
+        return lines == null ? null : List.of(lines).subList(4, lines.length);
+    }
+
+    /**
+     * Record the current fingerprint along with the outputs of the execution.
+     * When the commit is unknown, the outputs are recorded alone, so that the next execution can prune them but is never up to date.
+     *
+     * @param revision The commit the execution generated from, or null if it is unknown
+     * @param resolvedAt When the commit was resolved from the remote, in milliseconds since the epoch, or 0 if it was not - it is then never trusted as recent
+     * @param outputs The absolute paths of the files produced by the execution
+     */
+    public void record(String revision, long resolvedAt, List<String> outputs) throws IOException {
+        var state = new StringBuilder(revision == null ? "" : fingerprint(revision, this.configuration)).append('\n')
+                .append(revision == null ? "" : revision).append('\n')
+                .append(resolvedAt).append('\n')
+                .append(this.configuration).append('\n');
+
+        for (var output : outputs) {
+            state.append(output).append('\n');
+        }
+
+        this.host.write(this.stateFilePath, state.toString());
+    }
+
+    /**
+     * @return The lines of the state file - the fingerprint, the revision, when it was resolved, the configuration, then the outputs - or null if there is none
+     */
+    private String[] readState() throws IOException {
+        var state = this.host.read(this.stateFilePath);
+
+        if (state == null) {
+            return null;
+        }
+
+        var lines = state.split("\n");
+
+        return lines.length < 4 ? null : lines;
+    }
+
+    /**
+     * @return Whether the passed state records a commit, and the current configuration, and every output it records still exists
+     */
+    private boolean isCurrent(String[] lines) throws IOException {
+        return lines != null && !lines[1].isEmpty() && lines[3].equals(this.configuration) && this.outputsExist(lines);
+    }
+
+    private boolean outputsExist(String[] lines) throws IOException {
+        for (var index = 4; index < lines.length; index++) {
+            if (!this.host.exists(lines[index])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,13 @@
+package domain;
+
+public interface Clock {
+    /**
+     * @return The current value of a monotonic clock, in nanoseconds
+     */
+    long wallTime();
+
+    /**
+     * @return The CPU time consumed so far by the calling thread, in nanoseconds, or 0 if it can't be measured
+     */
+    long cpuTime();
+}
@@ -2,8 +2,8 @@ package domain;
 
 import java.util.Map;
 
-public interface Code {
-  Map<String, String> impacts();
-
-  String attribute();
+public record Code(
+        Map<String, String> impacts,
+        String attribute
+) {
 }
@@ -1,4 +1,10 @@
 package domain;
 
 public class Exception extends Throwable {
+    public Exception() {
+    }
+
+    public Exception(String message) {
+        super(message);
+    }
 }
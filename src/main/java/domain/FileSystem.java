@@ -1,5 +1,9 @@
 package domain;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 public interface FileSystem {
     String resolve(String first, String... more);
 
@@ -11,4 +15,67 @@ public interface FileSystem {
      * @throws Exception
      */
     void write(String filePath, String content) throws Exception;
+
+    /**
+     * Write the passed `content` into the file located at the passed `filePath`, unless the file already holds exactly that content.
+     * Leaving unchanged files untouched preserves their modification time, so that downstream incremental tools don't reprocess them.
+     *
+     * @param filePath The absolute path of the file to write into
+     * @param content The content to write into the file
+     * @return Whether the file was written
+     * @throws Exception
+     */
+    boolean writeIfChanged(String filePath, String content) throws Exception;
+
+    /**
+     * Write the class files of the passed registrars - along with the ones of the helper classes of the repository registrar - into the class output directory
+     * located at the passed `directoryPath`, unless a file already holds exactly its class file.
+     *
+     * @param directoryPath The absolute path of the class output directory, the class files being written into the directories of their packages
+     * @param registrars The registrars to write
+     * @return Every class file, written or not
+     * @throws Exception
+     */
+    List<WrittenFile> writeClassFilesIfChanged(String directoryPath, RegistrarClasses registrars) throws Exception;
+
+    /**
+     * Render the content of the file located at the passed `filePath` straight into it, unless the file already holds exactly that content.
+     * The content is never held in memory as a whole, and the file is only replaced once the rendering has completed.
+     *
+     * @param filePath The absolute path of the file to write into
+     * @param renderer The renderer of the content
+     * @return Whether the file was written
+     * @throws Exception
+     */
+    boolean writeIfChanged(String filePath, Renderer renderer) throws Exception;
+
+    /**
+     * Write every passed content into the file it is associated with, unless the file already holds exactly that content.
+     * Every file is attempted, even when some of them fail; the failures are reported together once all files have been processed.
+     *
+     * @param contentsByFilePath The contents to write, indexed by the absolute path of the file to write them into
+     * @return The absolute paths of the files that were written, in the order of the passed contents
+     * @throws Exception
+     */
+    List<String> writeAllIfChanged(Map<String, String> contentsByFilePath) throws Exception;
+
+    /**
+     * Write the passed rules into a single bundle file located at the passed `filePath`, unless the file already holds exactly that bundle.
+     * The bundle holds the manifests and descriptions of the rules, along with an index that locates them by rule key.
+     *
+     * @param filePath The absolute path of the bundle file to write into
+     * @param rules The rules to write into the bundle, consumed one by one
+     * @return Whether the file was written
+     * @throws Exception
+     */
+    boolean writeBundleIfChanged(String filePath, Iterator<RuleData> rules) throws Exception;
+
+    /**
+     * Delete the file located at the passed `filePath`, if it exists.
+     *
+     * @param filePath The absolute path of the file to delete
+     * @return Whether the file existed
+     * @throws Exception
+     */
+    boolean delete(String filePath) throws Exception;
 }
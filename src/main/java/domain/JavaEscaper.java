@@ -0,0 +1,84 @@
+package domain;
+
+/**
+ * Escapes text into the content of a Java string literal, in a single pass and straight into a sink: the runs of characters that need no escaping are appended
+ * as ranges of the text, and the escape sequences are constants, so that no intermediate string is ever built.
+ * <p>
+ * The escaping is the one of StringEscapeUtils.escapeJava: quotes and backslashes are escaped, \b, \n, \t, \f and \r use their short escape sequences,
+ * and every other character below 32 or above 0x7f is escaped as a unicode escape sequence - a supplementary character being escaped as its surrogate pair.
+ */
+public class JavaEscaper {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * The unicode escape sequences, built on first use.
+     * Racing threads may build the same sequence twice, which is harmless since strings are immutable.
+     */
+    private static final String[] UNICODE_ESCAPES = new String[Character.MAX_VALUE + 1];
+
+    /**
+     * Append the escaped passed `text` to the passed sink; a null text is appended as "null", as String.format would.
+     */
+    public static void escape(Sink sink, String text) throws Exception {
+        if (text == null) {
+            sink.append("null");
+
+            return;
+        }
+
+        escape(sink, text, 0, text.length());
+    }
+
+    /**
+     * Append the escaped characters of the passed `text` from index `start`, inclusive, to index `end`, exclusive, to the passed sink.
+     */
+    public static void escape(Sink sink, String text, int start, int end) throws Exception {
+        for (var index = start; index < end; index++) {
+            var escape = escape(text.charAt(index));
+
+            if (escape != null) {
+                sink.append(text, start, index);
+                sink.append(escape);
+
+                start = index + 1;
+            }
+        }
+
+        sink.append(text, start, end);
+    }
+
+    /**
+     * @return The escape sequence of the passed character, or null if it needs no escaping
+     */
+    private static String escape(char character) {
+        return switch (character) {
+            case '"' -> "\\\"";
+            case '\\' -> "\\\\";
+            case '\b' -> "\\b";
+            case '\n' -> "\\n";
+            case '\t' -> "\\t";
+            case '\f' -> "\\f";
+            case '\r' -> "\\r";
+            default -> character < 32 || character > 0x7f ? unicodeEscape(character) : null;
+        };
+    }
+
+    private static String unicodeEscape(char character) {
+        var escape = UNICODE_ESCAPES[character];
+
+        if (escape == null) {
+            escape = new String(new char[]{
+                    '\\',
+                    'u',
+                    HEX_DIGITS[character >> 12 & 0xf],
+                    HEX_DIGITS[character >> 8 & 0xf],
+                    HEX_DIGITS[character >> 4 & 0xf],
+                    HEX_DIGITS[character & 0xf]
+            });
+
+            UNICODE_ESCAPES[character] = escape;
+        }
+
+        return escape;
+    }
+}
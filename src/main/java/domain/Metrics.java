@@ -0,0 +1,230 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the wall time, the CPU time and the volumes - rules, bytes, files - of the phases of an execution, in the order the phases are first recorded.
+ * Phases may be recorded concurrently, and several times: their CPU times and volumes add up, while the wall time of a phase is the time elapsed
+ * while at least one of its timers runs - concurrent timers of a phase count their common time once.
+ */
+public class Metrics {
+    public static final String RULES = "rules";
+    public static final String RENDERED_BYTES = "renderedBytes";
+    public static final String WRITTEN_BYTES = "writtenBytes";
+    public static final String WRITTEN_FILES = "writtenFiles";
+    public static final String SKIPPED_FILES = "skippedFiles";
+    public static final String DELETED_FILES = "deletedFiles";
+    public static final String REUSED_RULES = "reusedRules";
+
+    private static final Clock STOPPED_CLOCK = new Clock() {
+        public long wallTime() {
+            return 0;
+        }
+
+        public long cpuTime() {
+            return 0;
+        }
+    };
+
+    /**
+     * Measures a phase from its creation until it is closed, on the thread that created it.
+     */
+    public interface Timer extends AutoCloseable {
+        void close();
+    }
+
+    /**
+     * Work measured as a phase, that returns a result.
+     */
+    public interface Work<T, E extends Throwable> {
+        T run() throws E;
+    }
+
+    public record Phase(String name, long wallTime, long cpuTime, Map<String, Long> counters) {
+    }
+
+    private static class MutablePhase {
+        private long wallTime;
+        private int runningTimerCount;
+        private long runningSince;
+        private long cpuTime;
+        private final LinkedHashMap<String, Long> counters = new LinkedHashMap<>();
+    }
+
+    private final Clock clock;
+    private final LinkedHashMap<String, MutablePhase> phases = new LinkedHashMap<>();
+
+    /**
+     * Create metrics that only record volumes, and no time.
+     */
+    public Metrics() {
+        this(STOPPED_CLOCK);
+    }
+
+    public Metrics(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Start measuring the wall time and the CPU time of the passed phase.
+     */
+    public Timer time(String phase) {
+        this.startWallTime(phase);
+
+        var cpuTime = this.clock.cpuTime();
+
+        return () -> {
+            this.addTimes(phase, 0, this.clock.cpuTime() - cpuTime);
+            this.stopWallTime(phase);
+        };
+    }
+
+    /**
+     * Start measuring the CPU time only of the passed phase - for the work a phase hands over to worker threads, whose wall time is measured by the phase itself.
+     */
+    public Timer timeCpu(String phase) {
+        var cpuTime = this.clock.cpuTime();
+
+        return () -> this.addTimes(phase, 0, this.clock.cpuTime() - cpuTime);
+    }
+
+    /**
+     * Run the passed work, measuring its wall time and its CPU time as the passed phase.
+     *
+     * @return The result of the work
+     */
+    public <T, E extends Throwable> T time(String phase, Work<T, E> work) throws E {
+        var timer = this.time(phase);
+
+        try {
+            return work.run();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Run the passed work, measuring its CPU time only as the passed phase.
+     *
+     * @return The result of the work
+     */
+    public <T, E extends Throwable> T timeCpu(String phase, Work<T, E> work) throws E {
+        var timer = this.timeCpu(phase);
+
+        try {
+            return work.run();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Add the passed `value` to the passed counter of the passed phase.
+     */
+    public synchronized void count(String phase, String counter, long value) {
+        this.phase(phase).counters.merge(counter, value, Long::sum);
+    }
+
+    /**
+     * Count a file of the passed phase, whose content is `byteCount` bytes long, and that was either written or skipped as unchanged.
+     */
+    public synchronized void countFile(String phase, long byteCount, boolean written) {
+        this.count(phase, RENDERED_BYTES, byteCount);
+
+        if (written) {
+            this.count(phase, WRITTEN_FILES, 1);
+            this.count(phase, WRITTEN_BYTES, byteCount);
+        } else {
+            this.count(phase, SKIPPED_FILES, 1);
+        }
+    }
+
+    /**
+     * @return The recorded phases, in the order they were first recorded
+     */
+    public synchronized List<Phase> getPhases() {
+        var phases = new ArrayList<Phase>();
+
+        this.phases.forEach((name, phase) -> phases.add(new Phase(name, phase.wallTime, phase.cpuTime, Map.copyOf(phase.counters))));
+
+        return phases;
+    }
+
+    /**
+     * Log one line per recorded phase.
+     */
+    public void log(Logger logger) {
+        for (var phase : this.getPhases()) {
+            var line = new StringBuilder(String.format(
+                    "%s: %d ms wall time, %d ms CPU time",
+                    phase.name(),
+                    phase.wallTime() / 1_000_000,
+                    phase.cpuTime() / 1_000_000
+            ));
+
+            phase.counters().entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(counter -> line
+                    .append(", ")
+                    .append(counter.getValue())
+                    .append(' ')
+                    .append(counter.getKey())
+            );
+
+            logger.log(line.toString());
+        }
+    }
+
+    /**
+     * @return The number of bytes of the UTF-8 encoding of the passed `text`
+     */
+    public static long byteCount(String text) {
+        return byteCount(text, 0, text.length());
+    }
+
+    /**
+     * @return The number of bytes of the UTF-8 encoding of the characters of the passed `text` from index `start`, inclusive, to index `end`, exclusive
+     */
+    public static long byteCount(String text, int start, int end) {
+        long byteCount = end - start;
+
+        for (var index = start; index < end; index++) {
+            var character = text.charAt(index);
+
+            if (character >= 0x80) {
+                // a surrogate pair takes 4 bytes, i.e. 2 more than its 2 characters
+                byteCount += character < 0x800 || Character.isSurrogate(character) ? 1 : 2;
+            }
+        }
+
+        return byteCount;
+    }
+
+    private synchronized void addTimes(String phase, long wallTime, long cpuTime) {
+        var mutablePhase = this.phase(phase);
+
+        mutablePhase.wallTime += wallTime;
+        mutablePhase.cpuTime += cpuTime;
+    }
+
+    private synchronized void startWallTime(String phase) {
+        var mutablePhase = this.phase(phase);
+
+        if (mutablePhase.runningTimerCount++ == 0) {
+            mutablePhase.runningSince = this.clock.wallTime();
+        }
+    }
+
+    private synchronized void stopWallTime(String phase) {
+        var mutablePhase = this.phase(phase);
+
+        if (--mutablePhase.runningTimerCount == 0) {
+            mutablePhase.wallTime += this.clock.wallTime() - mutablePhase.runningSince;
+        }
+    }
+
+    private MutablePhase phase(String name) {
+        return this.phases.computeIfAbsent(name, key -> new MutablePhase());
+    }
+}
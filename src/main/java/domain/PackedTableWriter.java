@@ -0,0 +1,125 @@
+package domain;
+
+import java.util.List;
+
+/**
+ * Writes fields into a packed table, rendered as the string literals of an array initializer.
+ * <p>
+ * Every field is packed as its length, a colon and its characters - a null field being packed as a -1 length - so that it can be read back
+ * without any escaping. The table is split into literals of at most CHUNK_LENGTH characters, that fit the 65535 bytes a class file constant
+ * can hold whatever the characters; the chunks are to be joined back before the table is read.
+ * <p>
+ * The chunks are either rendered as escaped string literals into a sink, or collected as they are, to become the string constants of a class file.
+ */
+public class PackedTableWriter {
+    private static final int CHUNK_LENGTH = 65535 / 3;
+
+    private final Sink sink;
+    private final String separator;
+    private final List<String> chunks;
+    private final StringBuilder chunk = new StringBuilder();
+    private int chunkLength = -1;
+
+    /**
+     * @param separator The text appended between two literals, typically a comma followed by a line break and indentation
+     */
+    public PackedTableWriter(Sink sink, String separator) {
+        this.sink = sink;
+        this.separator = separator;
+        this.chunks = null;
+    }
+
+    /**
+     * @param chunks The list the chunks are added to, unescaped, as they are closed
+     */
+    public PackedTableWriter(List<String> chunks) {
+        this.sink = null;
+        this.separator = null;
+        this.chunks = chunks;
+    }
+
+    public void write(String field) throws Exception {
+        if (field == null) {
+            this.pack("-1:", 0, 3);
+
+            return;
+        }
+
+        var prefix = field.length() + ":";
+
+        this.pack(prefix, 0, prefix.length());
+        this.pack(field, 0, field.length());
+    }
+
+    public void write(int field) throws Exception {
+        this.write(String.valueOf(field));
+    }
+
+    /**
+     * End a row of the table: the next field starts a new literal, so that a change of a row shows as a change of its own literals in the rendered source.
+     */
+    public void endRow() {
+        if (this.chunkLength > 0) {
+            this.chunkLength = CHUNK_LENGTH;
+        }
+    }
+
+    /**
+     * Close the last literal; a table without any field is rendered as a single empty literal.
+     */
+    public void close() throws Exception {
+        if (this.chunks != null) {
+            this.chunks.add(this.chunk.toString());
+
+            return;
+        }
+
+        if (this.chunkLength < 0) {
+            this.sink.append("\"");
+        }
+
+        this.sink.append("\"");
+    }
+
+    private void pack(String text, int start, int end) throws Exception {
+        while (start < end) {
+            if (this.chunkLength < 0) {
+                this.startChunk(false);
+            } else if (this.chunkLength == CHUNK_LENGTH) {
+                this.startChunk(true);
+            }
+
+            var chunkEnd = Math.min(end, start + CHUNK_LENGTH - this.chunkLength);
+
+            if (this.chunks == null) {
+                JavaEscaper.escape(this.sink, text, start, chunkEnd);
+            } else {
+                this.chunk.append(text, start, chunkEnd);
+            }
+
+            this.chunkLength += chunkEnd - start;
+            start = chunkEnd;
+        }
+    }
+
+    /**
+     * @param closePrevious Whether a previous chunk is to be closed first
+     */
+    private void startChunk(boolean closePrevious) throws Exception {
+        if (this.chunks != null) {
+            if (closePrevious) {
+                this.chunks.add(this.chunk.toString());
+                this.chunk.setLength(0);
+            }
+        } else {
+            if (closePrevious) {
+                this.sink.append("\"");
+                this.sink.append(this.separator);
+            }
+
+            this.sink.append("\"");
+        }
+
+        this.chunkLength = 0;
+    }
+}
@@ -1,11 +1,9 @@
 package domain;
 
-public interface Parameter {
-    String name();
-
-    String description();
-
-    String type();
-
-    String defaultValue();
+public record Parameter(
+        String name,
+        String description,
+        String type,
+        String defaultValue
+) {
 }
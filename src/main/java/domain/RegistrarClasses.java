@@ -0,0 +1,26 @@
+package domain;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The registrars of a language, to be written as class files rather than as sources - the repository registrar being the one of the table layout.
+ *
+ * @param repositoryRegistrarName The internal name of the repository registrar, that also prefixes the internal names of its helper classes
+ * @param profileRegistrarName The internal name of the profile registrar
+ * @param compatibleLanguageKey The language the registrars register the rules for
+ * @param repositoryKey The key of the repository
+ * @param table The chunks of the packed table of the rules, as written by a PackedTableWriter
+ * @param externalizeDocumentation Whether the documentation of the rules is loaded from resources, the table holding none
+ * @param ruleKeysByProfileName The keys of the rules activated by every profile the profile registrar defines, in the order the profiles are defined in
+ */
+public record RegistrarClasses(
+        String repositoryRegistrarName,
+        String profileRegistrarName,
+        String compatibleLanguageKey,
+        String repositoryKey,
+        List<String> table,
+        boolean externalizeDocumentation,
+        Map<String, List<String>> ruleKeysByProfileName
+) {
+}
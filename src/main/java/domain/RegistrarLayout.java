@@ -0,0 +1,14 @@
+package domain;
+
+public enum RegistrarLayout {
+    /**
+     * A private method per rule, registering an anonymous implementation of RuleManifest - and of the RuleManifest* interfaces of its parts.
+     */
+    CLASSES,
+
+    /**
+     * The rules packed into a table of string constants, read when the repository is defined into a single implementation of each RuleManifest* interface,
+     * so that the registrar is made of a handful of classes whatever the number of rules.
+     */
+    TABLE
+}
@@ -1,228 +1,305 @@
 package domain;
 
 import java.util.ArrayList;
-import java.util.stream.Collectors;
-
-import org.apache.commons.text.StringEscapeUtils;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class RegistrarsGenerator {
   private final Logger logger;
   private final RuleRepository ruleRepository;
   private final FileSystem fileSystem;
+  private final Metrics metrics;
 
   public RegistrarsGenerator(Logger logger, RuleRepository ruleRepository, FileSystem fileSystem) {
+    this(logger, ruleRepository, fileSystem, new Metrics());
+  }
+
+  /**
+   * @param metrics The metrics the phases of the generation are recorded into:
+   *                "load" fetches the rules that pass the filter,
+   *                "render" renders the registrars - streaming them into their files, or writing their class files - and "write" writes the documentation resources
+   */
+  public RegistrarsGenerator(Logger logger, RuleRepository ruleRepository, FileSystem fileSystem, Metrics metrics) {
     this.logger = logger;
     this.ruleRepository = ruleRepository;
     this.fileSystem = fileSystem;
+    this.metrics = metrics;
   }
 
-  public void execute(
-          String packageName,
-          String languageKey,
-          String compatibleLanguageKey,
-          String repositoryKey,
-          String targetDirectory,
-          String profileName
-  ) throws Exception {
+  /**
+   * @param options What to generate, and where
+   * @return The absolute paths of the generated files
+   */
+  public List<String> execute(RegistrarsOptions options) throws Exception {
+    // the class files are the ones of the table layout, and so must be the sources written along
+    if (options.classDirectory() != null && options.layout() != RegistrarLayout.TABLE) {
+      throw new IllegalArgumentException(String.format("The registrar class files are written with the table layout, not the %s one", options.layout()));
+    }
+
     logger.log(
             String.format(
                     "Fetching rules for language %s",
-                    languageKey
+                    options.languageKey()
             )
     );
 
-    var rules = ruleRepository.getRulesByLanguage(languageKey).stream().filter(
-            rule -> rule.compatibleLanguages().contains(compatibleLanguageKey)
-    ).toList();
+    // the filter is pushed down to the repository, so that the descriptions of the rules it rejects are never read
+    var rules = this.metrics.time("load", () -> ruleRepository.getRulesByLanguage(
+            options.languageKey(),
+            (options.ruleFilter() == null ? RuleFilter.ALL : options.ruleFilter()).withCompatibleLanguageKey(options.compatibleLanguageKey())
+    ));
 
-    // generate the repository factory
-    logger.log(
-            String.format(
-                    "Generating the \"%s\" repository factory for language \"%s\" to %s",
-                    repositoryKey,
-                    compatibleLanguageKey,
-                    targetDirectory
-            )
-    );
+    this.metrics.count("load", Metrics.RULES, rules.size());
 
-    var entryPointBuilder = new StringBuilder();
+    var className = String.format("%sRepositoryRegistrar", options.repositoryKey());
+    var rulesByProfileName = indexByProfileName(rules);
+    var definedProfileNames = options.profileNames() == null ? rulesByProfileName.keySet().stream().sorted().toList() : options.profileNames();
+    var profileDefinitionClassName = String.format("%sProfileRegistrar", options.repositoryKey());
 
-    var className = String.format("%sRepositoryRegistrar", repositoryKey);
+    var outputs = new ArrayList<String>();
+    var writtenFileCount = 0;
+    var externalizeDocumentation = options.documentationDirectory() != null;
 
-    entryPointBuilder.append(String.format("""
-            package %s;
-            import org.sonar.api.server.rule.RulesDefinition;
-            import org.sonar.api.SonarRuntime;
-            import org.sonarsource.analyzer.commons.RuleMetadataLoader;
-            import org.sonarsource.analyzer.commons.domain.*;
-            import java.util.Map;
-            import java.util.List;
-            """, packageName));
-    entryPointBuilder.append(String.format("""
-            public class %s implements RulesDefinition {
-              protected RuleMetadataLoader ruleMetadataLoader;
-            
-              public %s(SonarRuntime sonarRuntime) {
-                this.ruleMetadataLoader = new RuleMetadataLoader(sonarRuntime);
-              }
-            """, className, className));
+    if (externalizeDocumentation) {
+      var documentationsByFilePath = new LinkedHashMap<String, String>();
+      var ruleNames = new HashSet<String>();
 
-    for (var rule : rules) {
-      entryPointBuilder.append(String.format("""
-                private void register%s(NewRepository repository) {
-              """, rule.name()));
+      for (var rule : rules) {
+        var documentationFilePath = this.documentationFilePath(options.documentationDirectory(), options.packageName(), options.repositoryKey(), rule.name());
 
-      var tags = rule.tags().stream().map(tag -> String.format("\"%s\"", tag));
-      var remediationCode = "null";
-      var remediation = rule.remediation();
+        if (options.changedRuleKeys() == null || options.changedRuleKeys().contains(rule.name())) {
+          documentationsByFilePath.put(documentationFilePath, rule.htmlDocumentation());
+        }
 
-      if (remediation != null) {
-        var linearFactorCode = "null";
-        var linearFactor = remediation.linearFactor();
+        ruleNames.add(rule.name());
+        outputs.add(documentationFilePath);
+      }
+
+      var writtenFilePaths = this.metrics.time("write", () -> new HashSet<>(this.fileSystem.writeAllIfChanged(documentationsByFilePath)));
+
+      for (var documentation : documentationsByFilePath.entrySet()) {
+        this.metrics.countFile("write", Metrics.byteCount(documentation.getValue()), writtenFilePaths.contains(documentation.getKey()));
+      }
+
+      writtenFileCount += writtenFilePaths.size();
 
-        if (linearFactor != null) {
-          linearFactorCode = String.format("\"%s\"", linearFactor);
+      if (options.changedRuleKeys() != null) {
+        int deletedFileCount = this.metrics.time("write", () -> {
+          var count = 0;
+
+          for (var changedRuleKey : options.changedRuleKeys()) {
+            if (!ruleNames.contains(changedRuleKey) && this.fileSystem.delete(this.documentationFilePath(options.documentationDirectory(), options.packageName(), options.repositoryKey(), changedRuleKey))) {
+              count++;
+            }
+          }
+
+          return count;
+        });
+
+        this.metrics.count("write", Metrics.DELETED_FILES, deletedFileCount);
+
+        logger.log(
+                String.format(
+                        "Incremental generation: %d changed documentation resource(s) out of %d, %d resource(s) of removed rules deleted",
+                        documentationsByFilePath.size(),
+                        rules.size(),
+                        deletedFileCount
+                )
+        );
+      }
+    }
+
+    var timer = this.metrics.time("render");
+
+    try {
+      if (options.classDirectory() != null) {
+        logger.log(
+                String.format(
+                        "Writing the \"%s\" repository and profile registrar class files for language \"%s\" to %s",
+                        options.repositoryKey(),
+                        options.compatibleLanguageKey(),
+                        options.classDirectory()
+                )
+        );
+
+        var table = new ArrayList<String>();
+
+        this.writeTable(new PackedTableWriter(table), rules, externalizeDocumentation);
+
+        var ruleKeysByProfileName = new LinkedHashMap<String, List<String>>();
+
+        for (var profileName : definedProfileNames) {
+          ruleKeysByProfileName.put(profileName, rulesByProfileName.getOrDefault(profileName, List.of()).stream().map(Rule::name).toList());
         }
 
-        var linearOffsetCode = "null";
-        var linearOffset = remediation.linearOffset();
+        var registrars = new RegistrarClasses(
+                internalName(options.packageName(), className),
+                internalName(options.packageName(), profileDefinitionClassName),
+                options.compatibleLanguageKey(),
+                options.repositoryKey(),
+                table,
+                externalizeDocumentation,
+                ruleKeysByProfileName
+        );
 
-        if (linearOffset != null) {
-          linearOffsetCode = String.format("\"%s\"", linearOffset);
+        for (var classFile : this.fileSystem.writeClassFilesIfChanged(options.classDirectory(), registrars)) {
+          this.metrics.countFile("render", classFile.byteCount(), classFile.written());
+
+          if (classFile.written()) {
+            writtenFileCount++;
+          }
+
+          outputs.add(classFile.filePath());
         }
+      }
+
+      if (options.targetDirectory() != null) {
+        // generate the repository factory
+        logger.log(
+                String.format(
+                        "Generating the \"%s\" repository factory for language \"%s\" to %s",
+                        options.repositoryKey(),
+                        options.compatibleLanguageKey(),
+                        options.targetDirectory()
+                )
+        );
+
+        var entryPointFileName = this.fileSystem.resolve(options.targetDirectory(), className + ".java");
+
+        if (options.layout() == RegistrarLayout.TABLE) {
+          if (this.render(entryPointFileName, sink -> this.renderTableRepositoryRegistrar(sink, options.packageName(), className, options.compatibleLanguageKey(), options.repositoryKey(), rules, externalizeDocumentation))) {
+            writtenFileCount++;
+          }
+        } else if (options.rulesPerShard() > 0) {
+          var shardClassNames = new ArrayList<String>();
 
-        var linearDescriptionCode = "null";
-        var linearDescription = remediation.linearDescription();
+          for (var shardIndex = 0; shardIndex * options.rulesPerShard() < rules.size(); shardIndex++) {
+            var shardClassName = String.format("%sShard%d", className, shardIndex);
+            var shardFileName = this.fileSystem.resolve(options.targetDirectory(), shardClassName + ".java");
+            var shardRules = rules.subList(shardIndex * options.rulesPerShard(), Math.min(rules.size(), (shardIndex + 1) * options.rulesPerShard()));
+
+            if (this.render(shardFileName, sink -> this.renderRepositoryRegistrarShard(sink, options.packageName(), shardClassName, options.repositoryKey(), shardRules, externalizeDocumentation))) {
+              writtenFileCount++;
+            }
 
-        if (linearDescription != null) {
-          linearDescriptionCode = String.format("\"%s\"", StringEscapeUtils.escapeJava(linearDescription));
+            shardClassNames.add(shardClassName);
+            outputs.add(shardFileName);
+          }
+
+          if (this.render(entryPointFileName, sink -> this.renderShardedRepositoryRegistrar(sink, options.packageName(), className, options.compatibleLanguageKey(), options.repositoryKey(), shardClassNames))) {
+            writtenFileCount++;
+          }
+        } else {
+          if (this.render(entryPointFileName, sink -> this.renderRepositoryRegistrar(sink, options.packageName(), className, options.compatibleLanguageKey(), options.repositoryKey(), rules, externalizeDocumentation))) {
+            writtenFileCount++;
+          }
         }
 
-        remediationCode = String.format("""
-                        new RuleManifestRemediation() {
-                          public String func() {
-                            return "%s";
-                          }
-                          public String constantCost() {
-                            return "%s";
-                          }
-                          public String linearFactor() {
-                            return %s;
-                          }
-                          public String linearOffset() {
-                            return %s;
-                          }
-                          public String linearDescription() {
-                            return %s;
-                          }
-                        }""",
-                remediation.function(),
-                remediation.cost(),
-                linearFactorCode,
-                linearOffsetCode,
-                linearDescriptionCode
+        outputs.add(entryPointFileName);
+
+        // generate the profile definition class
+        logger.log(
+                String.format(
+                        "Generating the \"%s\" profile definition(s) for language \"%s\" to %s",
+                        String.join("\", \"", definedProfileNames),
+                        options.compatibleLanguageKey(),
+                        options.targetDirectory()
+                )
         );
-      }
 
-      var parametersCodes = new ArrayList<String>();
+        var profileDefinitionFileName = this.fileSystem.resolve(options.targetDirectory(), profileDefinitionClassName + ".java");
 
-      for (var parameter : rule.parameters()) {
-        parametersCodes.add(String.format("""
-                        new RuleManifestParameter() {
-                          public String defaultValue() {
-                            return "%s";
-                          }
-                          public String description() {
-                            return "%s";
-                          }
-                          public String names() {
-                            return "%s";
-                          }
-                          public String type() {
-                            return "%s";
-                          }
-                        }""",
-                StringEscapeUtils.escapeJava(parameter.defaultValue()),
-                StringEscapeUtils.escapeJava(parameter.description()),
-                parameter.name(),
-                parameter.type()
-        ));
+        if (this.render(profileDefinitionFileName, sink -> this.renderProfileRegistrar(sink, options.packageName(), profileDefinitionClassName, options.compatibleLanguageKey(), options.repositoryKey(), definedProfileNames, rulesByProfileName))) {
+          writtenFileCount++;
+        }
+
+        outputs.add(profileDefinitionFileName);
       }
+    } finally {
+      timer.close();
+    }
 
-      // code
-      var codeCode = "null";
-      var code = rule.code();
+    logger.log(
+            String.format(
+                    "%d file(s) written, %d unchanged file(s) skipped",
+                    writtenFileCount,
+                    outputs.size() - writtenFileCount
+            )
+    );
 
-      if (code != null) {
-        String impactsCode = code.impacts().entrySet().stream().map(impact -> {
-          return String.format("\"%s\", \"%s\"", impact.getKey(), impact.getValue());
-        }).collect(Collectors.joining(", "));
-
-        codeCode = String.format("""
-                new RuleManifestCode() {
-                  public Map<String, String> impacts() {
-                    return Map.of(%s);
-                  }
-                  public String attribute() {
-                    return "%s";
-                  }
-                }""", impactsCode, rule.code().attribute());
+    return outputs;
+  }
+
+  /**
+   * @return The internal name - the binary name with slashes - of the class of the passed simple name, in the passed package
+   */
+  private static String internalName(String packageName, String className) {
+    return packageName.replace('.', '/') + "/" + className;
+  }
+
+  private String documentationFilePath(String documentationDirectory, String packageName, String repositoryKey, String ruleName) {
+    var packageDirectories = packageName.split("\\.");
+    var segments = Arrays.copyOf(packageDirectories, packageDirectories.length + 2);
+
+    segments[packageDirectories.length] = repositoryKey;
+    segments[packageDirectories.length + 1] = ruleName + ".html";
+
+    return this.fileSystem.resolve(documentationDirectory, segments);
+  }
+
+  /**
+   * Render the file located at the passed `filePath` with the passed `renderer`, unless it already holds exactly that content, counting the rendered bytes.
+   */
+  private boolean render(String filePath, Renderer renderer) throws Exception {
+    var byteCount = new long[1];
+    var written = this.fileSystem.writeIfChanged(filePath, sink -> renderer.render(new Sink() {
+      public void append(String text) throws Exception {
+        byteCount[0] += Metrics.byteCount(text);
+        sink.append(text);
+      }
+
+      public void append(String text, int start, int end) throws Exception {
+        byteCount[0] += Metrics.byteCount(text, start, end);
+        sink.append(text, start, end);
       }
+    }));
+
+    this.metrics.countFile("render", byteCount[0], written);
+
+    return written;
+  }
+
+  private void renderRepositoryRegistrar(
+          Sink sink,
+          String packageName,
+          String className,
+          String compatibleLanguageKey,
+          String repositoryKey,
+          List<Rule> rules,
+          boolean externalizeDocumentation
+  ) throws Exception {
+    this.renderImports(sink, packageName);
+    sink.append(String.format("""
+            public class %s implements RulesDefinition {
+              protected RuleMetadataLoader ruleMetadataLoader;
+            
+              public %s(SonarRuntime sonarRuntime) {
+                this.ruleMetadataLoader = new RuleMetadataLoader(sonarRuntime);
+              }
+            """, className, className));
 
-      entryPointBuilder.append(String.format("""
-                        this.ruleMetadataLoader.createRuleFromRuleManifest(repository, new RuleManifest() {
-                          public RuleManifestCode code() {
-                            return %s;
-                          }
-                          public String defaultSeverity() {
-                            return "%s";
-                          }
-                          public String htmlDocumentation() {
-                            return "%s";
-                          }
-                          public String name() {
-                            return "%s";
-                          }
-                          public List<RuleManifestParameter> parameters() {
-                            return List.of(%s);
-                          }
-                          public RuleManifestRemediation remediation() {
-                            return %s;
-                          }
-                          public String scope() {
-                            return "%s";
-                          }
-                          public String status() {
-                            return "%s";
-                          }
-                          public List<String> tags() {
-                            return List.of(%s);
-                          }
-                          public String title() {
-                            return "%s";
-                          }
-                          public String type() {
-                            return "%s";
-                          }
-                        });
-                      """,
-              codeCode,
-              rule.defaultSeverity(),
-              StringEscapeUtils.escapeJava(rule.htmlDocumentation()),
-              rule.name(),
-              String.join(",", parametersCodes),
-              remediationCode,
-              rule.scope(),
-              rule.status(),
-              tags.collect(Collectors.joining(",")),
-              StringEscapeUtils.escapeJava(rule.title()),
-              rule.type()
-      ));
-
-      entryPointBuilder.append("}\n");
+    if (externalizeDocumentation) {
+      this.renderDocumentationLoader(sink, className, repositoryKey);
     }
 
-    entryPointBuilder.append(String.format("""
+    for (var rule : rules) {
+      this.renderRuleRegistration(sink, rule, externalizeDocumentation);
+    }
+
+    sink.append(String.format("""
                     public void define(Context context) {
                       NewRepository repository = context.createRepository("%s", "%s").setName("SonarAnalyzer");
                     """,
@@ -231,59 +308,695 @@ public class RegistrarsGenerator {
     ));
 
     for (var rule : rules) {
-      entryPointBuilder.append(String.format("""
-              this.register%s(repository);
-              """, rule.name()));
+      sink.append("this.register");
+      sink.append(rule.name());
+      sink.append("(repository);\n");
     }
 
-    entryPointBuilder.append("""
+    sink.append("""
                 repository.done();
               }
             }
             """);
+  }
 
-    var entryPointFileName = this.fileSystem.resolve(targetDirectory, className + ".java");
+  /**
+   * Render a package-private class that registers the passed rules into the repository it is passed, to be aggregated by the repository registrar.
+   * Splitting the rules across several classes keeps each of them far from the class file limits, and lets them be compiled and loaded independently.
+   */
+  private void renderRepositoryRegistrarShard(
+          Sink sink,
+          String packageName,
+          String shardClassName,
+          String repositoryKey,
+          List<Rule> rules,
+          boolean externalizeDocumentation
+  ) throws Exception {
+    this.renderImports(sink, packageName);
+    sink.append(String.format("""
+            import org.sonar.api.server.rule.RulesDefinition.NewRepository;
+            class %s {
+              private final RuleMetadataLoader ruleMetadataLoader;
+            
+              %s(RuleMetadataLoader ruleMetadataLoader) {
+                this.ruleMetadataLoader = ruleMetadataLoader;
+              }
+            """, shardClassName, shardClassName));
 
-    this.fileSystem.write(entryPointFileName, entryPointBuilder.toString());
+    if (externalizeDocumentation) {
+      this.renderDocumentationLoader(sink, shardClassName, repositoryKey);
+    }
 
-    // generate the profile definition class
-    logger.log(
-            String.format(
-                    "Generating the \"%s\" profile definition for language \"%s\" to %s",
-                    profileName,
-                    compatibleLanguageKey,
-                    targetDirectory
-            )
+    for (var rule : rules) {
+      this.renderRuleRegistration(sink, rule, externalizeDocumentation);
+    }
+
+    sink.append("""
+              void define(NewRepository repository) {
+            """);
+
+    for (var rule : rules) {
+      sink.append("this.register");
+      sink.append(rule.name());
+      sink.append("(repository);\n");
+    }
+
+    sink.append("""
+              }
+            }
+            """);
+  }
+
+  private void renderShardedRepositoryRegistrar(
+          Sink sink,
+          String packageName,
+          String className,
+          String compatibleLanguageKey,
+          String repositoryKey,
+          List<String> shardClassNames
+  ) throws Exception {
+    this.renderImports(sink, packageName);
+    sink.append(String.format("""
+            public class %s implements RulesDefinition {
+              protected RuleMetadataLoader ruleMetadataLoader;
+            
+              public %s(SonarRuntime sonarRuntime) {
+                this.ruleMetadataLoader = new RuleMetadataLoader(sonarRuntime);
+              }
+            
+              public void define(Context context) {
+                NewRepository repository = context.createRepository("%s", "%s").setName("SonarAnalyzer");
+            """, className, className, repositoryKey, compatibleLanguageKey));
+
+    for (var shardClassName : shardClassNames) {
+      sink.append(String.format("""
+                new %s(this.ruleMetadataLoader).define(repository);
+            """, shardClassName));
+    }
+
+    sink.append("""
+                repository.done();
+              }
+            }
+            """);
+  }
+
+  private static final Template TABLE_REPOSITORY_REGISTRAR_TEMPLATE = Template.of("""
+            public void define(Context context) {
+              NewRepository repository = context.createRepository("%s", "%s").setName("SonarAnalyzer");
+              var table = new PackedTable(String.join("", TABLE));
+              while (table.hasNext()) {
+                this.ruleMetadataLoader.createRuleFromRuleManifest(repository, table.nextManifest());
+              }
+              repository.done();
+            }
+
+            private static final class PackedTable {
+              private final String data;
+              private int position;
+
+              PackedTable(String data) {
+                this.data = data;
+              }
+
+              boolean hasNext() {
+                return this.position < this.data.length();
+              }
+
+              String next() {
+                var colon = this.data.indexOf(':', this.position);
+                var length = Integer.parseInt(this.data.substring(this.position, colon));
+                if (length < 0) {
+                  this.position = colon + 1;
+                  return null;
+                }
+                this.position = colon + 1 + length;
+                return this.data.substring(colon + 1, this.position);
+              }
+
+              int nextInt() {
+                return Integer.parseInt(this.next());
+              }
+
+              RuleManifest nextManifest() {
+                var name = this.next();
+                var defaultSeverity = this.next();
+                var htmlDocumentation = this.next();
+                var scope = this.next();
+                var status = this.next();
+                var title = this.next();
+                var type = this.next();
+                var tags = new String[this.nextInt()];
+                for (var index = 0; index < tags.length; index++) {
+                  tags[index] = this.next();
+                }
+                var parameters = new RuleManifestParameter[this.nextInt()];
+                for (var index = 0; index < parameters.length; index++) {
+                  parameters[index] = new PackedParameter(this.next(), this.next(), this.next(), this.next());
+                }
+                var remediation = this.nextInt() == 0 ? null : new PackedRemediation(this.next(), this.next(), this.next(), this.next(), this.next());
+                PackedCode code = null;
+                if (this.nextInt() != 0) {
+                  var impacts = new java.util.HashMap<String, String>();
+                  for (var impactCount = this.nextInt(); impactCount > 0; impactCount--) {
+                    impacts.put(this.next(), this.next());
+                  }
+                  code = new PackedCode(Map.copyOf(impacts), this.next());
+                }
+                return new PackedManifest(name, defaultSeverity, htmlDocumentation, scope, status, title, type, List.of(tags), List.of(parameters), remediation, code);
+              }
+            }
+
+            private static final class PackedManifest implements RuleManifest {
+              private final String name;
+              private final String defaultSeverity;
+              private final String htmlDocumentation;
+              private final String scope;
+              private final String status;
+              private final String title;
+              private final String type;
+              private final List<String> tags;
+              private final List<RuleManifestParameter> parameters;
+              private final RuleManifestRemediation remediation;
+              private final RuleManifestCode code;
+
+              PackedManifest(
+                String name,
+                String defaultSeverity,
+                String htmlDocumentation,
+                String scope,
+                String status,
+                String title,
+                String type,
+                List<String> tags,
+                List<RuleManifestParameter> parameters,
+                RuleManifestRemediation remediation,
+                RuleManifestCode code
+              ) {
+                this.name = name;
+                this.defaultSeverity = defaultSeverity;
+                this.htmlDocumentation = htmlDocumentation;
+                this.scope = scope;
+                this.status = status;
+                this.title = title;
+                this.type = type;
+                this.tags = tags;
+                this.parameters = parameters;
+                this.remediation = remediation;
+                this.code = code;
+              }
+              public RuleManifestCode code() {
+                return this.code;
+              }
+              public String defaultSeverity() {
+                return this.defaultSeverity;
+              }
+              public String htmlDocumentation() {
+                return %s;
+              }
+              public String name() {
+                return this.name;
+              }
+              public List<RuleManifestParameter> parameters() {
+                return this.parameters;
+              }
+              public RuleManifestRemediation remediation() {
+                return this.remediation;
+              }
+              public String scope() {
+                return this.scope;
+              }
+              public String status() {
+                return this.status;
+              }
+              public List<String> tags() {
+                return this.tags;
+              }
+              public String title() {
+                return this.title;
+              }
+              public String type() {
+                return this.type;
+              }
+            }
+
+            private static final class PackedRemediation implements RuleManifestRemediation {
+              private final String func;
+              private final String constantCost;
+              private final String linearFactor;
+              private final String linearOffset;
+              private final String linearDescription;
+
+              PackedRemediation(String func, String constantCost, String linearFactor, String linearOffset, String linearDescription) {
+                this.func = func;
+                this.constantCost = constantCost;
+                this.linearFactor = linearFactor;
+                this.linearOffset = linearOffset;
+                this.linearDescription = linearDescription;
+              }
+              public String func() {
+                return this.func;
+              }
+              public String constantCost() {
+                return this.constantCost;
+              }
+              public String linearFactor() {
+                return this.linearFactor;
+              }
+              public String linearOffset() {
+                return this.linearOffset;
+              }
+              public String linearDescription() {
+                return this.linearDescription;
+              }
+            }
+
+            private static final class PackedParameter implements RuleManifestParameter {
+              private final String defaultValue;
+              private final String description;
+              private final String names;
+              private final String type;
+
+              PackedParameter(String defaultValue, String description, String names, String type) {
+                this.defaultValue = defaultValue;
+                this.description = description;
+                this.names = names;
+                this.type = type;
+              }
+              public String defaultValue() {
+                return this.defaultValue;
+              }
+              public String description() {
+                return this.description;
+              }
+              public String names() {
+                return this.names;
+              }
+              public String type() {
+                return this.type;
+              }
+            }
+
+            private static final class PackedCode implements RuleManifestCode {
+              private final Map<String, String> impacts;
+              private final String attribute;
+
+              PackedCode(Map<String, String> impacts, String attribute) {
+                this.impacts = impacts;
+                this.attribute = attribute;
+              }
+              public Map<String, String> impacts() {
+                return this.impacts;
+              }
+              public String attribute() {
+                return this.attribute;
+              }
+            }
+          }
+          """);
+
+  /**
+   * Render a repository registrar that packs the passed rules into a table of string constants, and registers them with a single implementation of each
+   * RuleManifest* interface, instead of an anonymous class per rule and per part of a rule.
+   * The values are the ones the anonymous classes would return, down to the null values rendered as "null".
+   */
+  private void renderTableRepositoryRegistrar(
+          Sink sink,
+          String packageName,
+          String className,
+          String compatibleLanguageKey,
+          String repositoryKey,
+          List<Rule> rules,
+          boolean externalizeDocumentation
+  ) throws Exception {
+    this.renderImports(sink, packageName);
+    sink.append(String.format("""
+            public class %s implements RulesDefinition {
+              protected RuleMetadataLoader ruleMetadataLoader;
+            
+              public %s(SonarRuntime sonarRuntime) {
+                this.ruleMetadataLoader = new RuleMetadataLoader(sonarRuntime);
+              }
+            """, className, className));
+
+    if (externalizeDocumentation) {
+      this.renderDocumentationLoader(sink, className, repositoryKey);
+    }
+
+    sink.append("  private static final String[] TABLE = {\n      ");
+
+    this.writeTable(new PackedTableWriter(sink, ",\n      "), rules, externalizeDocumentation);
+    sink.append("""
+
+              };
+
+            """);
+
+    TABLE_REPOSITORY_REGISTRAR_TEMPLATE.render(
+            sink,
+            Template.text(repositoryKey),
+            Template.text(compatibleLanguageKey),
+            Template.text(externalizeDocumentation ? "documentation(this.name)" : "this.htmlDocumentation")
     );
+  }
+
+  /**
+   * Write the fields of the passed rules into the passed table, a row per rule, and close it.
+   */
+  private void writeTable(PackedTableWriter table, List<Rule> rules, boolean externalizeDocumentation) throws Exception {
+    for (var rule : rules) {
+      table.write(String.valueOf(rule.name()));
+      table.write(String.valueOf(rule.defaultSeverity()));
+      table.write(externalizeDocumentation ? null : rule.htmlDocumentation());
+      table.write(String.valueOf(rule.scope()));
+      table.write(String.valueOf(rule.status()));
+      table.write(String.valueOf(rule.title()));
+      table.write(String.valueOf(rule.type()));
+      table.write(rule.tags().size());
+
+      for (var tag : rule.tags()) {
+        table.write(String.valueOf(tag));
+      }
+
+      table.write(rule.parameters().size());
+
+      for (var parameter : rule.parameters()) {
+        table.write(String.valueOf(parameter.defaultValue()));
+        table.write(String.valueOf(parameter.description()));
+        table.write(String.valueOf(parameter.name()));
+        table.write(String.valueOf(parameter.type()));
+      }
+
+      var remediation = rule.remediation();
+
+      table.write(remediation == null ? 0 : 1);
 
-    var profileDefinitionClassName = String.format("%sProfileRegistrar", repositoryKey);
-    var profileDefinitionBuilder = new StringBuilder();
+      if (remediation != null) {
+        table.write(String.valueOf(remediation.function()));
+        table.write(String.valueOf(remediation.cost()));
+        table.write(remediation.linearFactor());
+        table.write(remediation.linearOffset());
+        table.write(remediation.linearDescription());
+      }
+
+      var code = rule.code();
+
+      table.write(code == null ? 0 : 1);
+
+      if (code != null) {
+        table.write(code.impacts().size());
+
+        for (var impact : code.impacts().entrySet()) {
+          table.write(impact.getKey());
+          table.write(impact.getValue());
+        }
+
+        table.write(String.valueOf(code.attribute()));
+      }
+
+      table.endRow();
+    }
+
+    table.close();
+  }
+
+  /**
+   * Render the method that loads the documentation of a rule from its resource, only when the documentation is requested.
+   */
+  private void renderDocumentationLoader(Sink sink, String className, String repositoryKey) throws Exception {
+    sink.append(String.format("""
+              private static String documentation(String name) {
+                var resourceName = "%s/" + name + ".html";
+                try (var stream = %s.class.getResourceAsStream(resourceName)) {
+                  if (stream == null) {
+                    throw new IllegalStateException("Missing rule documentation resource " + resourceName);
+                  }
+                  return new String(stream.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+                } catch (java.io.IOException e) {
+                  throw new java.io.UncheckedIOException(e);
+                }
+              }
+            """, repositoryKey, className));
+  }
 
-    profileDefinitionBuilder.append(String.format("""
+  private void renderImports(Sink sink, String packageName) throws Exception {
+    sink.append(String.format("""
             package %s;
-            import org.sonar.api.server.profile.BuiltInQualityProfilesDefinition;
+            import org.sonar.api.server.rule.RulesDefinition;
+            import org.sonar.api.SonarRuntime;
+            import org.sonarsource.analyzer.commons.RuleMetadataLoader;
+            import org.sonarsource.analyzer.commons.domain.*;
+            import java.util.Map;
+            import java.util.List;
             """, packageName));
+  }
 
-    profileDefinitionBuilder.append(String.format("public class %s implements BuiltInQualityProfilesDefinition {\n", profileDefinitionClassName));
-    profileDefinitionBuilder.append("public void define(Context context) {\n");
+  private static final Template RULE_REGISTRATION_TEMPLATE = Template.of("""
+            private void register%s(NewRepository repository) {
+            this.ruleMetadataLoader.createRuleFromRuleManifest(repository, new RuleManifest() {
+              public RuleManifestCode code() {
+                return %s;
+              }
+              public String defaultSeverity() {
+                return "%s";
+              }
+              public String htmlDocumentation() {
+                return %s;
+              }
+              public String name() {
+                return "%s";
+              }
+              public List<RuleManifestParameter> parameters() {
+                return List.of(%s);
+              }
+              public RuleManifestRemediation remediation() {
+                return %s;
+              }
+              public String scope() {
+                return "%s";
+              }
+              public String status() {
+                return "%s";
+              }
+              public List<String> tags() {
+                return List.of(%s);
+              }
+              public String title() {
+                return "%s";
+              }
+              public String type() {
+                return "%s";
+              }
+            });
+          }
+          """);
+
+  private static final Template REMEDIATION_TEMPLATE = Template.of("""
+          new RuleManifestRemediation() {
+            public String func() {
+              return "%s";
+            }
+            public String constantCost() {
+              return "%s";
+            }
+            public String linearFactor() {
+              return %s;
+            }
+            public String linearOffset() {
+              return %s;
+            }
+            public String linearDescription() {
+              return %s;
+            }
+          }""");
+
+  private static final Template PARAMETER_TEMPLATE = Template.of("""
+          new RuleManifestParameter() {
+            public String defaultValue() {
+              return "%s";
+            }
+            public String description() {
+              return "%s";
+            }
+            public String names() {
+              return "%s";
+            }
+            public String type() {
+              return "%s";
+            }
+          }""");
 
-    profileDefinitionBuilder.append(String.format("""
-            var newProfile = context.createBuiltInQualityProfile(
-                  "%s",
-                  "%s"
+  private static final Template CODE_TEMPLATE = Template.of("""
+          new RuleManifestCode() {
+            public Map<String, String> impacts() {
+              return Map.of(%s);
+            }
+            public String attribute() {
+              return "%s";
+            }
+          }""");
+
+  /**
+   * Render the private method that registers the passed rule into a repository.
+   * Values are rendered straight into the sink, and escaped on the fly, so that the registration is never built as a string.
+   */
+  private void renderRuleRegistration(Sink sink, Rule rule, boolean externalizeDocumentation) throws Exception {
+    var remediation = rule.remediation();
+    var code = rule.code();
+
+    RULE_REGISTRATION_TEMPLATE.render(
+            sink,
+            Template.text(rule.name()),
+            code == null ? Template.text(null) : codeSink -> CODE_TEMPLATE.render(
+                    codeSink,
+                    impactsSink -> {
+                      var separator = "";
+
+                      for (var impact : code.impacts().entrySet()) {
+                        impactsSink.append(separator);
+                        impactsSink.append("\"");
+                        impactsSink.append(impact.getKey());
+                        impactsSink.append("\", \"");
+                        impactsSink.append(impact.getValue());
+                        impactsSink.append("\"");
+
+                        separator = ", ";
+                      }
+                    },
+                    Template.text(code.attribute())
+            ),
+            Template.text(rule.defaultSeverity()),
+            externalizeDocumentation
+                    ? documentationSink -> {
+                      documentationSink.append("documentation(\"");
+                      documentationSink.append(rule.name());
+                      documentationSink.append("\")");
+                    }
+                    : stringLiteral(rule.htmlDocumentation(), true),
+            Template.text(rule.name()),
+            parametersSink -> {
+              var separator = "";
+
+              for (var parameter : rule.parameters()) {
+                parametersSink.append(separator);
+                PARAMETER_TEMPLATE.render(
+                        parametersSink,
+                        Template.escaped(parameter.defaultValue()),
+                        Template.escaped(parameter.description()),
+                        Template.text(parameter.name()),
+                        Template.text(parameter.type())
                 );
-            """, profileName, compatibleLanguageKey));
+
+                separator = ",";
+              }
+            },
+            remediation == null ? Template.text(null) : remediationSink -> REMEDIATION_TEMPLATE.render(
+                    remediationSink,
+                    Template.text(remediation.function()),
+                    Template.text(remediation.cost()),
+                    stringLiteral(remediation.linearFactor(), false),
+                    stringLiteral(remediation.linearOffset(), false),
+                    stringLiteral(remediation.linearDescription(), true)
+            ),
+            Template.text(rule.scope()),
+            Template.text(rule.status()),
+            tagsSink -> {
+              var separator = "";
+
+              for (var tag : rule.tags()) {
+                tagsSink.append(separator);
+                tagsSink.append("\"");
+                tagsSink.append(tag);
+                tagsSink.append("\"");
+
+                separator = ",";
+              }
+            },
+            Template.escaped(rule.title()),
+            Template.text(rule.type())
+    );
+  }
+
+  /**
+   * @param escaped Whether the value must be escaped
+   * @return The renderer of the string literal of the passed value, or of null if the value is null
+   */
+  private static Renderer stringLiteral(String value, boolean escaped) {
+    if (value == null) {
+      return Template.text(null);
+    }
+
+    return sink -> {
+      sink.append("\"");
+
+      if (escaped) {
+        JavaEscaper.escape(sink, value);
+      } else {
+        sink.append(value);
+      }
+
+      sink.append("\"");
+    };
+  }
+
+  /**
+   * @return The passed rules, by the name of every quality profile they belong to, in the order they were passed
+   */
+  private static Map<String, List<Rule>> indexByProfileName(List<Rule> rules) {
+    var rulesByProfileName = new LinkedHashMap<String, List<Rule>>();
 
     for (var rule : rules) {
-      if (rule.qualityProfiles().contains(profileName)) {
-        profileDefinitionBuilder.append(String.format("newProfile.activateRule(\"%s\", \"%s\");", repositoryKey, rule.name()));
+      for (var profileName : rule.qualityProfiles()) {
+        rulesByProfileName.computeIfAbsent(profileName, key -> new ArrayList<>()).add(rule);
       }
     }
 
-    profileDefinitionBuilder.append("newProfile.done();}}");
+    return rulesByProfileName;
+  }
+
+  /**
+   * Render a profile registrar that defines every passed profile, activating the rules the passed index holds for it.
+   */
+  private void renderProfileRegistrar(
+          Sink sink,
+          String packageName,
+          String profileDefinitionClassName,
+          String compatibleLanguageKey,
+          String repositoryKey,
+          List<String> profileNames,
+          Map<String, List<Rule>> rulesByProfileName
+  ) throws Exception {
+    sink.append(String.format("""
+            package %s;
+            import org.sonar.api.server.profile.BuiltInQualityProfilesDefinition;
+            """, packageName));
+
+    sink.append(String.format("public class %s implements BuiltInQualityProfilesDefinition {\n", profileDefinitionClassName));
+    sink.append("public void define(Context context) {\n");
+
+    for (var profileIndex = 0; profileIndex < profileNames.size(); profileIndex++) {
+      var profileName = profileNames.get(profileIndex);
+
+      // the variable is declared by the first profile, and reused by the next ones
+      sink.append(profileIndex == 0 ? "var " : "");
+      sink.append(String.format("""
+              newProfile = context.createBuiltInQualityProfile(
+                    "%s",
+                    "%s"
+                  );
+              """, profileName, compatibleLanguageKey));
+
+      for (var rule : rulesByProfileName.getOrDefault(profileName, List.of())) {
+        sink.append("newProfile.activateRule(\"");
+        sink.append(repositoryKey);
+        sink.append("\", \"");
+        sink.append(rule.name());
+        sink.append("\");");
+      }
 
-    var profileDefinitionFileName = this.fileSystem.resolve(targetDirectory, profileDefinitionClassName + ".java");
+      sink.append("newProfile.done();");
+    }
 
-    this.fileSystem.write(profileDefinitionFileName, profileDefinitionBuilder.toString());
+    sink.append("}}");
   }
 }
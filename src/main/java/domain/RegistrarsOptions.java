@@ -0,0 +1,71 @@
+package domain;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What a single generation of the registrars of a language produces, and where.
+ * The options other than the ones identifying the registrars default to: every rule, every profile they belong to,
+ * a single registrar class of the classes layout with inlined documentation, and a full generation of their sources only.
+ *
+ * @param packageName The package of the registrars
+ * @param languageKey The language the rules are read from
+ * @param compatibleLanguageKey The language the rules must be compatible with, and the registrars register them for
+ * @param repositoryKey The key of the repository, that prefixes the names of the registrar classes
+ * @param targetDirectory The directory the sources of the registrars are written into, or null to only write their class files
+ * @param ruleFilter The filter the rules must pass on top of being compatible with `compatibleLanguageKey`, or null for none
+ * @param profileNames The quality profiles defined by the profile registrar, every one from the same index of the rules by profile; null defines every profile the rules belong to
+ * @param rulesPerShard The maximum number of rules registered by each shard of the repository registrar; 0 generates a single registrar class
+ * @param documentationDirectory The resource directory the documentation of the rules is written into, to be loaded on demand by the registrar; null inlines the documentation in the registrar instead
+ * @param layout The layout of the repository registrar; the table layout generates a single registrar class, whatever `rulesPerShard`
+ * @param changedRuleKeys The keys of the rules that changed since the registrars were last generated into the target directory, or null if unknown;
+ *                        only the documentation resources of the changed rules are then written - or deleted if a rule is gone
+ * @param classDirectory The class output directory the registrars are written into as class files, so that they don't need to be compiled, or null to only write their sources;
+ *                       the class files are the ones of the table layout, that `layout` must then be - and so are the sources written along, for debugging
+ */
+public record RegistrarsOptions(
+        String packageName,
+        String languageKey,
+        String compatibleLanguageKey,
+        String repositoryKey,
+        String targetDirectory,
+        RuleFilter ruleFilter,
+        List<String> profileNames,
+        int rulesPerShard,
+        String documentationDirectory,
+        RegistrarLayout layout,
+        Set<String> changedRuleKeys,
+        String classDirectory
+) {
+    public static RegistrarsOptions of(String packageName, String languageKey, String compatibleLanguageKey, String repositoryKey, String targetDirectory) {
+        return new RegistrarsOptions(packageName, languageKey, compatibleLanguageKey, repositoryKey, targetDirectory, null, null, 0, null, RegistrarLayout.CLASSES, null, null);
+    }
+
+    public RegistrarsOptions withRuleFilter(RuleFilter ruleFilter) {
+        return new RegistrarsOptions(this.packageName, this.languageKey, this.compatibleLanguageKey, this.repositoryKey, this.targetDirectory, ruleFilter, this.profileNames, this.rulesPerShard, this.documentationDirectory, this.layout, this.changedRuleKeys, this.classDirectory);
+    }
+
+    public RegistrarsOptions withProfileNames(List<String> profileNames) {
+        return new RegistrarsOptions(this.packageName, this.languageKey, this.compatibleLanguageKey, this.repositoryKey, this.targetDirectory, this.ruleFilter, profileNames, this.rulesPerShard, this.documentationDirectory, this.layout, this.changedRuleKeys, this.classDirectory);
+    }
+
+    public RegistrarsOptions withRulesPerShard(int rulesPerShard) {
+        return new RegistrarsOptions(this.packageName, this.languageKey, this.compatibleLanguageKey, this.repositoryKey, this.targetDirectory, this.ruleFilter, this.profileNames, rulesPerShard, this.documentationDirectory, this.layout, this.changedRuleKeys, this.classDirectory);
+    }
+
+    public RegistrarsOptions withDocumentationDirectory(String documentationDirectory) {
+        return new RegistrarsOptions(this.packageName, this.languageKey, this.compatibleLanguageKey, this.repositoryKey, this.targetDirectory, this.ruleFilter, this.profileNames, this.rulesPerShard, documentationDirectory, this.layout, this.changedRuleKeys, this.classDirectory);
+    }
+
+    public RegistrarsOptions withLayout(RegistrarLayout layout) {
+        return new RegistrarsOptions(this.packageName, this.languageKey, this.compatibleLanguageKey, this.repositoryKey, this.targetDirectory, this.ruleFilter, this.profileNames, this.rulesPerShard, this.documentationDirectory, layout, this.changedRuleKeys, this.classDirectory);
+    }
+
+    public RegistrarsOptions withChangedRuleKeys(Set<String> changedRuleKeys) {
+        return new RegistrarsOptions(this.packageName, this.languageKey, this.compatibleLanguageKey, this.repositoryKey, this.targetDirectory, this.ruleFilter, this.profileNames, this.rulesPerShard, this.documentationDirectory, this.layout, changedRuleKeys, this.classDirectory);
+    }
+
+    public RegistrarsOptions withClassDirectory(String classDirectory) {
+        return new RegistrarsOptions(this.packageName, this.languageKey, this.compatibleLanguageKey, this.repositoryKey, this.targetDirectory, this.ruleFilter, this.profileNames, this.rulesPerShard, this.documentationDirectory, this.layout, this.changedRuleKeys, classDirectory);
+    }
+}
@@ -1,13 +1,10 @@
 package domain;
 
-public interface Remediation {
-    String function();
-
-    String cost();
-
-    String linearFactor();
-
-    String linearOffset();
-
-    String linearDescription();
+public record Remediation(
+        String function,
+        String cost,
+        String linearFactor,
+        String linearOffset,
+        String linearDescription
+) {
 }
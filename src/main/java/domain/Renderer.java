@@ -0,0 +1,5 @@
+package domain;
+
+public interface Renderer {
+    void render(Sink sink) throws Exception;
+}
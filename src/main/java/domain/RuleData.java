@@ -0,0 +1,7 @@
+package domain;
+
+/**
+ * The data of a rule, as shipped to analyzers: its serialized JSON manifest and its HTML description.
+ */
+public record RuleData(String key, String manifest, String description) {
+}
@@ -0,0 +1,13 @@
+package domain;
+
+public enum RuleDataFormat {
+    /**
+     * One `<key>.json` manifest file and one `<key>.html` description file per rule.
+     */
+    FILES,
+
+    /**
+     * A single `rules.bundle` file holding the manifests and descriptions of every rule, along with an index of their locations.
+     */
+    BUNDLE
+}
@@ -1,19 +1,52 @@
 package domain;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
 public class RuleDataGenerator {
+    /**
+     * The number of rules whose files are written at once: the rule manifests being streamed from the repository, at most that many are held in memory.
+     */
+    private static final int WRITE_BATCH_SIZE = 256;
+
     private final Logger logger;
     private final RuleRepository ruleRepository;
     private final FileSystem fileSystem;
+    private final Metrics metrics;
 
     public RuleDataGenerator(Logger logger, RuleRepository ruleRepository, FileSystem fileSystem) {
+        this(logger, ruleRepository, fileSystem, new Metrics());
+    }
+
+    /**
+     * @param metrics The metrics the phases of the generation are recorded into: "load" fetches the rule manifests, "write" writes the rule data,
+     *                and "prune" deletes the stale files of the previous generation
+     */
+    public RuleDataGenerator(Logger logger, RuleRepository ruleRepository, FileSystem fileSystem, Metrics metrics) {
         this.logger = logger;
         this.ruleRepository = ruleRepository;
         this.fileSystem = fileSystem;
+        this.metrics = metrics;
     }
 
-    public void execute(
+    /**
+     * @param format The format of the rule data
+     * @param changedRuleKeys The keys of the rules that changed since the rule data was last generated into the target directory, or null to generate the rule data of every rule.
+     *                        Only the files of the changed rules are then written - the ones of removed rules being pruned; the bundle format is always generated as a whole
+     * @param previousOutputs The absolute paths of the files the previous generation into the target directory consisted of, or null if unknown;
+     *                        the ones the rule data no longer consists of are deleted
+     * @return The absolute paths of the files the rule data consists of
+     */
+    public List<String> execute(
             String ruleSubdirectory,
-            String targetDirectory
+            String targetDirectory,
+            RuleDataFormat format,
+            Set<String> changedRuleKeys,
+            List<String> previousOutputs
     ) throws Exception {
         logger.log(
                 String.format(
@@ -23,20 +56,182 @@ public class RuleDataGenerator {
                 )
         );
 
-        var ruleManifests = ruleRepository.getRuleManifestsByRuleSubdirectory(ruleSubdirectory);
+        var incremental = changedRuleKeys != null && format == RuleDataFormat.FILES;
+        var filter = incremental ? new RuleFilter(null, null, changedRuleKeys) : RuleFilter.ALL;
+
+        try (var ruleManifests = this.ruleRepository.streamRuleManifestsByRuleSubdirectory(ruleSubdirectory, filter)) {
+            if (format == RuleDataFormat.BUNDLE) {
+                return this.prune(List.of(this.writeBundle(targetDirectory, ruleManifests.iterator())), previousOutputs);
+            }
+
+            var ruleKeys = incremental ? this.ruleRepository.getRuleKeysByRuleSubdirectory(ruleSubdirectory) : new ArrayList<String>();
+            var ruleCount = this.writeFiles(targetDirectory, ruleManifests.iterator(), incremental ? null : ruleKeys);
+
+            if (incremental) {
+                logger.log(String.format("Incremental generation: %d changed rule(s) out of %d", ruleCount, ruleKeys.size()));
+            }
+
+            var outputs = new ArrayList<String>();
+
+            for (var ruleKey : ruleKeys) {
+                outputs.add(this.documentationFile(targetDirectory, ruleKey));
+                outputs.add(this.manifestFile(targetDirectory, ruleKey));
+            }
+
+            return this.prune(outputs, previousOutputs);
+        }
+    }
+
+    /**
+     * Write the passed rules into a bundle, as they are loaded: loading them is accounted for by the "write" phase.
+     *
+     * @return The absolute path of the bundle file
+     */
+    private String writeBundle(String targetDirectory, Iterator<RuleData> ruleManifests) throws Exception {
+        var bundleFile = this.fileSystem.resolve(targetDirectory, "rules.bundle");
+        var countingRuleManifests = new CountingIterator(ruleManifests);
+        boolean written = this.metrics.time("write", () -> this.fileSystem.writeBundleIfChanged(bundleFile, countingRuleManifests));
+
+        this.metrics.count("load", Metrics.RULES, countingRuleManifests.ruleCount);
+
+        // the index of the bundle is not accounted for
+        this.metrics.countFile("write", countingRuleManifests.byteCount, written);
+
+        logger.log(
+                String.format(
+                        "%d rule(s) bundled into %s%s",
+                        countingRuleManifests.ruleCount,
+                        bundleFile,
+                        written ? "" : ", unchanged"
+                )
+        );
+
+        return bundleFile;
+    }
+
+    /**
+     * Write the files of the passed rules, batch by batch, so that at most WRITE_BATCH_SIZE rules are held in memory at once.
+     *
+     * @param ruleKeys The list the keys of the written rules are added to, or null
+     * @return The number of written rules
+     */
+    private int writeFiles(String targetDirectory, Iterator<RuleData> ruleManifests, List<String> ruleKeys) throws Exception {
+        var ruleCount = 0;
+        var writtenFileCount = 0;
+        var skippedFileCount = 0;
+
+        while (true) {
+            var contentsByFilePath = new LinkedHashMap<String, String>();
+
+            var timer = this.metrics.time("load");
+
+            try {
+                while (ruleManifests.hasNext() && contentsByFilePath.size() < 2 * WRITE_BATCH_SIZE) {
+                    var ruleManifest = ruleManifests.next();
+
+                    contentsByFilePath.put(this.documentationFile(targetDirectory, ruleManifest.key()), ruleManifest.description());
+                    contentsByFilePath.put(this.manifestFile(targetDirectory, ruleManifest.key()), ruleManifest.manifest());
+
+                    if (ruleKeys != null) {
+                        ruleKeys.add(ruleManifest.key());
+                    }
+
+                    ruleCount++;
+                }
+            } finally {
+                timer.close();
+            }
+
+            if (contentsByFilePath.isEmpty()) {
+                break;
+            }
 
-        for (var ruleManifest : ruleManifests) {
-            var name = ruleManifest.getKey();
+            var writtenFilePaths = this.metrics.time("write", () -> new HashSet<>(this.fileSystem.writeAllIfChanged(contentsByFilePath)));
 
-            var documentationFileName = name + ".html";
-            var documentationFile = this.fileSystem.resolve(targetDirectory, documentationFileName);
+            for (var content : contentsByFilePath.entrySet()) {
+                this.metrics.countFile("write", Metrics.byteCount(content.getValue()), writtenFilePaths.contains(content.getKey()));
+            }
+
+            writtenFileCount += writtenFilePaths.size();
+            skippedFileCount += contentsByFilePath.size() - writtenFilePaths.size();
+        }
+
+        this.metrics.count("load", Metrics.RULES, ruleCount);
+
+        logger.log(
+                String.format(
+                        "%d file(s) written, %d unchanged file(s) skipped",
+                        writtenFileCount,
+                        skippedFileCount
+                )
+        );
+
+        return ruleCount;
+    }
+
+    /**
+     * Delete the files of the previous generation that the passed outputs no longer include: the ones of removed rules, or of another format.
+     *
+     * @return The passed outputs
+     */
+    private List<String> prune(List<String> outputs, List<String> previousOutputs) throws Exception {
+        if (previousOutputs == null) {
+            return outputs;
+        }
+
+        var currentOutputs = new HashSet<>(outputs);
+        int deletedFileCount = this.metrics.time("prune", () -> {
+            var count = 0;
+
+            for (var previousOutput : previousOutputs) {
+                if (!currentOutputs.contains(previousOutput) && this.fileSystem.delete(previousOutput)) {
+                    count++;
+                }
+            }
+
+            return count;
+        });
+
+        this.metrics.count("prune", Metrics.DELETED_FILES, deletedFileCount);
+
+        if (deletedFileCount > 0) {
+            logger.log(String.format("%d stale file(s) deleted", deletedFileCount));
+        }
+
+        return outputs;
+    }
+
+    private String documentationFile(String targetDirectory, String ruleKey) {
+        return this.fileSystem.resolve(targetDirectory, ruleKey + ".html");
+    }
+
+    private String manifestFile(String targetDirectory, String ruleKey) {
+        return this.fileSystem.resolve(targetDirectory, ruleKey + ".json");
+    }
+
+    /**
+     * Counts the rules - and the bytes of their manifests and descriptions - as they are consumed.
+     */
+    private static class CountingIterator implements Iterator<RuleData> {
+        private final Iterator<RuleData> ruleManifests;
+        private int ruleCount = 0;
+        private long byteCount = 0;
+
+        private CountingIterator(Iterator<RuleData> ruleManifests) {
+            this.ruleManifests = ruleManifests;
+        }
+
+        public boolean hasNext() {
+            return this.ruleManifests.hasNext();
+        }
 
-             this.fileSystem.write(documentationFile, ruleManifest.getDescription());
+        public RuleData next() {
+            var ruleManifest = this.ruleManifests.next();
 
-            var manifestFileName = name + ".json";
-            var manifestFile = this.fileSystem.resolve(targetDirectory, manifestFileName);
+            this.ruleCount++;
+            this.byteCount += Metrics.byteCount(ruleManifest.manifest()) + Metrics.byteCount(ruleManifest.description());
 
-            this.fileSystem.write(manifestFile, ruleManifest.getMetadata().toString());
+            return ruleManifest;
         }
     }
 }
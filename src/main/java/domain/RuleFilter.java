@@ -0,0 +1,42 @@
+package domain;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Selects rules on their metadata alone, so that a repository can apply it before it reads the description of a rule.
+ * Its string representation is the same for equal filters, whatever the order their statuses and keys were passed in, so that it can key what it selects.
+ *
+ * @param compatibleLanguageKey The language the rules must be compatible with, or null for any language
+ * @param statuses The statuses the rules must have, or null for any status
+ * @param ruleKeys The keys the rules must have, or null for any key
+ */
+public record RuleFilter(String compatibleLanguageKey, Set<String> statuses, Set<String> ruleKeys) {
+    public static final RuleFilter ALL = new RuleFilter(null, null, null);
+
+    public RuleFilter {
+        statuses = sorted(statuses);
+        ruleKeys = sorted(ruleKeys);
+    }
+
+    public RuleFilter withCompatibleLanguageKey(String compatibleLanguageKey) {
+        return new RuleFilter(compatibleLanguageKey, this.statuses, this.ruleKeys);
+    }
+
+    public boolean accepts(String ruleKey, List<String> compatibleLanguages, String status) {
+        return (this.compatibleLanguageKey == null || compatibleLanguages.contains(this.compatibleLanguageKey))
+                && (this.statuses == null || this.statuses.contains(status))
+                && (this.ruleKeys == null || this.ruleKeys.contains(ruleKey));
+    }
+
+    public boolean accepts(Rule rule) {
+        return this.accepts(rule.name(), rule.compatibleLanguages(), rule.status());
+    }
+
+    private static Set<String> sorted(Collection<String> values) {
+        return values == null ? null : Collections.unmodifiableSortedSet(new TreeSet<>(values));
+    }
+}
@@ -1,10 +1,23 @@
 package domain;
 
-import com.sonarsource.ruleapi.domain.RuleFiles;
-
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface RuleRepository {
-    List<Rule> getRulesByLanguage(String languageKey);
-    List<RuleFiles> getRuleManifestsByRuleSubdirectory(String ruleSubdirectory);
+    /**
+     * @param filter The filter the rules must pass, applied before their descriptions are read
+     */
+    List<Rule> getRulesByLanguage(String languageKey, RuleFilter filter);
+
+    /**
+     * The manifests are read one by one, as the returned stream is consumed, so that they never need to be held in memory all at once.
+     *
+     * @param filter The filter the rules must pass, applied before their manifests are formatted and their descriptions are read
+     */
+    Stream<RuleData> streamRuleManifestsByRuleSubdirectory(String ruleSubdirectory, RuleFilter filter);
+
+    /**
+     * @return The keys of every rule of the passed subdirectory, in the order their manifests are returned in
+     */
+    List<String> getRuleKeysByRuleSubdirectory(String ruleSubdirectory);
 }
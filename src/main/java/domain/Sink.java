@@ -0,0 +1,18 @@
+package domain;
+
+/**
+ * A destination that text is rendered into, piece by piece, so that the whole text never needs to be held in memory.
+ */
+public interface Sink {
+    void append(String text) throws Exception;
+
+    /**
+     * Append the characters of the passed `text` from index `start`, inclusive, to index `end`, exclusive.
+     * Sinks that can append a range without copying it into a new string should override this method.
+     */
+    default void append(String text, int start, int end) throws Exception {
+        if (start < end) {
+            this.append(text.substring(start, end));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A text with %s placeholders, parsed once, whose values are rendered straight into a sink - unlike String.format, that builds the whole text, and every value, as strings first.
+ */
+public class Template {
+    private final List<String> fragments;
+
+    private Template(List<String> fragments) {
+        this.fragments = fragments;
+    }
+
+    public static Template of(String text) {
+        var fragments = new ArrayList<String>();
+        var start = 0;
+
+        for (var placeholder = text.indexOf("%s"); placeholder >= 0; placeholder = text.indexOf("%s", start)) {
+            fragments.add(text.substring(start, placeholder));
+
+            start = placeholder + 2;
+        }
+
+        fragments.add(text.substring(start));
+
+        return new Template(List.copyOf(fragments));
+    }
+
+    /**
+     * A value appended as is; a null value is appended as "null", as String.format would.
+     */
+    public static Renderer text(String value) {
+        return sink -> sink.append(value == null ? "null" : value);
+    }
+
+    /**
+     * A value escaped into the content of a Java string literal.
+     */
+    public static Renderer escaped(String value) {
+        return sink -> JavaEscaper.escape(sink, value);
+    }
+
+    /**
+     * Render the template into the passed sink, every placeholder being replaced with the value of the same index.
+     */
+    public void render(Sink sink, Renderer... values) throws Exception {
+        if (values.length != this.fragments.size() - 1) {
+            throw new IllegalArgumentException(String.format("%d value(s) passed to a template of %d placeholder(s)", values.length, this.fragments.size() - 1));
+        }
+
+        sink.append(this.fragments.get(0));
+
+        for (var index = 0; index < values.length; index++) {
+            values[index].render(sink);
+            sink.append(this.fragments.get(index + 1));
+        }
+    }
+}
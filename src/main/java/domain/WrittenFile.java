@@ -0,0 +1,11 @@
+package domain;
+
+/**
+ * A file written by a generation - or left untouched, as it already held exactly its content.
+ *
+ * @param filePath The absolute path of the file
+ * @param byteCount The size of the content of the file, in bytes
+ * @param written Whether the file was written
+ */
+public record WrittenFile(String filePath, long byteCount, boolean written) {
+}
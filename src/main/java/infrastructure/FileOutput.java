@@ -0,0 +1,121 @@
+package infrastructure;
+
+import application.Host;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Streams the content of a file into a sibling temporary file, that is only moved over the file once committed -
+ * unless both are identical, in which case the file is left untouched.
+ */
+class FileOutput implements Host.Output {
+    private final Path path;
+    private final Path temporaryPath;
+    private final Writer writer;
+    private boolean committed = false;
+
+    private FileOutput(Path path, Path temporaryPath, Writer writer) {
+        this.path = path;
+        this.temporaryPath = temporaryPath;
+        this.writer = writer;
+    }
+
+    static FileOutput open(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        var temporaryPath = temporarySibling(path);
+        var writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        return new FileOutput(path, temporaryPath, writer);
+    }
+
+    /**
+     * Create a path for a temporary sibling of the file located at the passed `path`, that can be published over it afterward.
+     * Not Files.createTempFile, that would restrict the permissions of the published file to its owner.
+     */
+    static Path temporarySibling(Path path) {
+        return path.resolveSibling(String.format(".%s.%x.tmp", path.getFileName(), ThreadLocalRandom.current().nextLong()));
+    }
+
+    /**
+     * Move the file located at the passed `temporaryPath` over the one located at the passed `path`, unless both are identical,
+     * in which case the temporary file is deleted and the file is left untouched.
+     *
+     * @return Whether the file was written
+     */
+    static boolean publish(Path temporaryPath, Path path) throws IOException {
+        if (Files.isRegularFile(path) && Files.mismatch(temporaryPath, path) == -1L) {
+            Files.delete(temporaryPath);
+
+            return false;
+        }
+
+        move(temporaryPath, path);
+
+        return true;
+    }
+
+    static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public void append(String text) throws application.IOException {
+        try {
+            this.writer.write(text);
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public void append(String text, int start, int end) throws application.IOException {
+        try {
+            this.writer.write(text, start, end - start);
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public boolean commit() throws application.IOException {
+        try {
+            this.writer.close();
+
+            var written = publish(this.temporaryPath, this.path);
+
+            this.committed = true;
+
+            return written;
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public void close() {
+        if (this.committed) {
+            return;
+        }
+
+        try {
+            this.writer.close();
+            Files.deleteIfExists(this.temporaryPath);
+        }
+        catch (IOException e) {
+            // nothing more can be done about a temporary file that can't be removed
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package infrastructure;
+
+import domain.Clock;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class JVMClock implements Clock {
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    public long wallTime() {
+        return System.nanoTime();
+    }
+
+    public long cpuTime() {
+        return this.threadMXBean.isCurrentThreadCpuTimeSupported() ? this.threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+}
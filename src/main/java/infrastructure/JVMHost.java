@@ -1,13 +1,57 @@
 package infrastructure;
 
 import application.Host;
+import application.Parallel;
+import domain.RegistrarClasses;
+import domain.Rule;
+import domain.RuleData;
+import domain.WrittenFile;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.SafeMode;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 public class JVMHost implements Host {
+    private static final Pattern COMMIT_SHA = Pattern.compile("[0-9a-f]{40}");
+
+    /**
+     * Writing files is mostly waiting on the file system; a few threads are enough to keep it busy.
+     * They are shared by every write of the process, whatever the execution - or the thread of an execution - writing.
+     */
+    private static final Parallel WRITERS = new Parallel(Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Creating a converter boots a Ruby runtime, that takes seconds: a single one is created, the first time a document is converted.
+     */
+    private static Asciidoctor asciidoctor;
+
+    private record WriteOutcome(String filePath, boolean written, String failure) {
+    }
+
     public String resolve(String first, String... more) {
         return Paths.get(first, more).toString();
     }
@@ -18,7 +62,7 @@ public class JVMHost implements Host {
 
             file.getParentFile().mkdirs();
 
-            var writer = new FileWriter(file);
+            var writer = new FileWriter(file, StandardCharsets.UTF_8);
 
             writer.write(content);
             writer.close();
@@ -27,4 +71,535 @@ public class JVMHost implements Host {
             throw new application.IOException();
         }
     }
+
+    public boolean writeIfChanged(String filePath, String content) throws application.IOException {
+        try {
+            var path = Paths.get(filePath);
+
+            Files.createDirectories(path.getParent());
+
+            return writeIfChanged(path, content);
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public List<WrittenFile> writeClassFilesIfChanged(String directoryPath, RegistrarClasses registrars) throws application.IOException {
+        var writtenFiles = new ArrayList<WrittenFile>();
+
+        try {
+            for (var classFile : RegistrarClassFiles.write(registrars).entrySet()) {
+                var path = Paths.get(directoryPath, (classFile.getKey() + ".class").split("/"));
+
+                Files.createDirectories(path.getParent());
+                writtenFiles.add(new WrittenFile(path.toString(), classFile.getValue().length, writeIfChanged(path, classFile.getValue())));
+            }
+        }
+        catch (IOException e) {
+            throw new application.IOException(e.getMessage());
+        }
+
+        return writtenFiles;
+    }
+
+    public Output open(String filePath) throws application.IOException {
+        try {
+            return FileOutput.open(Paths.get(filePath));
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public boolean writeBundleIfChanged(String filePath, Iterator<RuleData> rules) throws application.IOException {
+        var path = Paths.get(filePath);
+        var temporaryPath = FileOutput.temporarySibling(path);
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            try (var stream = Files.newOutputStream(temporaryPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                RuleBundle.write(stream, rules);
+            }
+
+            return FileOutput.publish(temporaryPath, path);
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+        finally {
+            deleteTemporary(temporaryPath);
+        }
+    }
+
+    public Archive openArchive(String filePath) throws application.IOException {
+        try {
+            return new ZipArchive(Paths.get(filePath));
+        }
+        catch (IOException e) {
+            throw new application.IOException(String.format("Failed to open archive %s", filePath));
+        }
+    }
+
+    public ArchiveOutput createArchive(String filePath) throws application.IOException {
+        try {
+            return new ZipArchiveOutput(Paths.get(filePath));
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public List<String> writeAllIfChanged(Map<String, String> contentsByFilePath) throws application.IOException {
+        var failures = new ArrayList<String>();
+        var directories = new LinkedHashSet<Path>();
+
+        for (var filePath : contentsByFilePath.keySet()) {
+            directories.add(Paths.get(filePath).getParent());
+        }
+
+        for (var directory : directories) {
+            try {
+                Files.createDirectories(directory);
+            }
+            catch (IOException e) {
+                failures.add(String.format("%s (%s)", directory, e));
+            }
+        }
+
+        var outcomes = WRITERS.map(List.copyOf(contentsByFilePath.entrySet()), entry -> {
+            try {
+                return new WriteOutcome(entry.getKey(), writeIfChanged(Paths.get(entry.getKey()), entry.getValue()), null);
+            }
+            catch (IOException e) {
+                return new WriteOutcome(entry.getKey(), false, e.toString());
+            }
+        });
+
+        var writtenFilePaths = new ArrayList<String>();
+
+        for (var outcome : outcomes) {
+            if (outcome.failure() != null) {
+                failures.add(String.format("%s (%s)", outcome.filePath(), outcome.failure()));
+            }
+            else if (outcome.written()) {
+                writtenFilePaths.add(outcome.filePath());
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new application.IOException(String.format(
+                    "Failed to write %d path(s):%n%s",
+                    failures.size(),
+                    String.join(System.lineSeparator(), failures)
+            ));
+        }
+
+        return writtenFilePaths;
+    }
+
+    public String read(String filePath) throws application.IOException {
+        var path = Paths.get(filePath);
+
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public String convertAsciiDoc(String filePath, String baseDirectory) throws application.IOException {
+        var path = Paths.get(filePath);
+
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        var basePath = Paths.get(baseDirectory);
+        var options = Options.builder()
+                .toFile(false)
+                .standalone(false)
+                // the includes are confined to the base directory
+                .safe(SafeMode.SAFE)
+                .baseDir(basePath.toFile())
+                .build();
+
+        // the document is included from the base directory, rather than converted from its own one, that would then be the directory its includes are confined to
+        var document = String.format("include::%s[]", basePath.relativize(path).toString().replace(File.separatorChar, '/'));
+
+        try {
+            var asciidoctor = asciidoctor();
+
+            // a converter is not thread-safe
+            synchronized (asciidoctor) {
+                return asciidoctor.convert(document, options);
+            }
+        }
+        catch (RuntimeException e) {
+            throw new application.IOException(String.format("Failed to convert %s: %s", filePath, e.getMessage()));
+        }
+    }
+
+    public boolean exists(String filePath) {
+        return Files.exists(Paths.get(filePath));
+    }
+
+    public List<String> list(String directoryPath) throws application.IOException {
+        var path = Paths.get(directoryPath);
+
+        if (!Files.isDirectory(path)) {
+            return List.of();
+        }
+
+        try (var entries = Files.list(path)) {
+            return entries.map(entry -> entry.getFileName().toString()).sorted().toList();
+        }
+        catch (IOException e) {
+            throw new application.IOException(String.format("Failed to list %s: %s", directoryPath, e.getMessage()));
+        }
+    }
+
+    public void delete(String filePath) throws application.IOException {
+        try {
+            Files.deleteIfExists(Paths.get(filePath));
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public List<Rule> readRules(String filePath, String key) {
+        var path = Paths.get(filePath);
+
+        try {
+            var rules = RuleCodec.read(ByteBuffer.wrap(Files.readAllBytes(path)), key);
+
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+
+            return rules;
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void writeRules(String filePath, String key, List<Rule> rules) throws application.IOException {
+        var path = Paths.get(filePath);
+        var temporaryPath = FileOutput.temporarySibling(path);
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            try (var stream = new BufferedOutputStream(Files.newOutputStream(temporaryPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+                RuleCodec.write(stream, key, rules);
+            }
+
+            FileOutput.move(temporaryPath, path);
+        }
+        catch (IOException e) {
+            throw new application.IOException(e.getMessage());
+        }
+        finally {
+            deleteTemporary(temporaryPath);
+        }
+    }
+
+    public void trim(String directoryPath, long maximumSize) throws application.IOException {
+        record Entry(Path path, long size, FileTime lastModifiedTime) {
+        }
+
+        var entries = new ArrayList<Entry>();
+
+        try (var paths = Files.list(Paths.get(directoryPath))) {
+            for (var path : (Iterable<Path>) paths::iterator) {
+                var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+                if (attributes.isRegularFile()) {
+                    entries.add(new Entry(path, attributes.size(), attributes.lastModifiedTime()));
+                }
+            }
+        }
+        catch (NoSuchFileException e) {
+            return;
+        }
+        catch (IOException e) {
+            throw new application.IOException(e.getMessage());
+        }
+
+        var size = entries.stream().mapToLong(Entry::size).sum();
+
+        entries.sort(Comparator.comparing(Entry::lastModifiedTime));
+
+        for (var entry : entries) {
+            if (size <= maximumSize) {
+                break;
+            }
+
+            try {
+                Files.deleteIfExists(entry.path());
+            }
+            catch (IOException e) {
+                throw new application.IOException(e.getMessage());
+            }
+
+            size -= entry.size();
+        }
+    }
+
+    public String resolveRevision(String url, String branchName) {
+        if (COMMIT_SHA.matcher(branchName).matches()) {
+            return branchName;
+        }
+
+        String output;
+
+        try {
+            output = git(null, "ls-remote", url, branchName);
+        } catch (application.IOException e) {
+            return null;
+        }
+
+        String revision = null;
+
+        for (var line : output.split("\n")) {
+            var columns = line.split("\t");
+
+            if (columns.length != 2 || !COMMIT_SHA.matcher(columns[0]).matches()) {
+                continue;
+            }
+
+            // an exact branch match wins over tags, or over branches that merely end with the same name
+            if (columns[1].equals("refs/heads/" + branchName)) {
+                return columns[0];
+            }
+
+            if (revision == null) {
+                revision = columns[0];
+            }
+        }
+
+        return revision;
+    }
+
+    public String checkoutSparse(String url, String branchName, String revision, String directory, List<String> patterns) throws application.IOException {
+        var path = Path.of(directory);
+        var existing = Files.isDirectory(path.resolve(".git"));
+        var target = "HEAD";
+
+        if (!existing) {
+            try {
+                Files.createDirectories(path.getParent());
+            } catch (IOException e) {
+                throw new application.IOException(e.getMessage());
+            }
+
+            git(null, "clone", "--quiet", "--filter=blob:none", "--no-checkout", "--depth", "1", "--single-branch", "--branch", branchName, url, directory);
+        }
+
+        // the branch may have moved since the commit was resolved, in which case that commit is fetched alone
+        if (existing || (revision != null && !revision.equals(git(path, "rev-parse", "HEAD").trim()))) {
+            git(path, "fetch", "--quiet", "--filter=blob:none", "--depth", "1", "origin", revision == null ? branchName : revision);
+
+            target = "FETCH_HEAD";
+        }
+
+        var sparseCheckout = new ArrayList<>(List.of("sparse-checkout", "set", "--no-cone"));
+
+        sparseCheckout.addAll(patterns);
+
+        git(path, sparseCheckout.toArray(String[]::new));
+        // the blobs of the checked out paths are fetched on demand, from the remote the clone was filtered from
+        git(path, "reset", "--quiet", "--hard", target);
+
+        return git(path, "rev-parse", "HEAD").trim();
+    }
+
+    public String checkout(String directory, String revision) throws application.IOException {
+        var path = Path.of(directory);
+
+        if (revision != null) {
+            try {
+                git(path, "cat-file", "-e", revision + "^{commit}");
+            } catch (application.IOException e) {
+                git(path, "fetch", "--quiet", "origin", revision);
+            }
+
+            git(path, "reset", "--quiet", "--hard", revision);
+        }
+
+        return git(path, "rev-parse", "HEAD").trim();
+    }
+
+    public Lock lock(String filePath, boolean shared) throws application.IOException {
+        try {
+            return LockFile.lock(Paths.get(filePath), shared);
+        }
+        catch (IOException e) {
+            throw new application.IOException(String.format("Failed to lock %s: %s", filePath, e.getMessage()));
+        }
+    }
+
+    public List<String> changedPaths(String directory, String fromRevision, String toRevision) {
+        var path = Path.of(directory);
+
+        for (var revision : List.of(fromRevision, toRevision)) {
+            try {
+                git(path, "cat-file", "-e", revision + "^{commit}");
+            } catch (application.IOException e) {
+                try {
+                    // a sparse checkout is a shallow, partial clone, into which the commit is fetched alone and without its blobs - the trees being enough to list the changed paths
+                    if (Files.isRegularFile(path.resolve(".git").resolve("shallow"))) {
+                        git(path, "fetch", "--quiet", "--filter=blob:none", "--depth", "1", "origin", revision);
+                    } else {
+                        git(path, "fetch", "--quiet", "origin", revision);
+                    }
+                } catch (application.IOException fetchException) {
+                    return null;
+                }
+            }
+        }
+
+        try {
+            var output = git(path, "diff", "--name-only", "--no-renames", "-z", fromRevision, toRevision);
+
+            return output.isEmpty() ? List.of() : List.of(output.split("\0"));
+        } catch (application.IOException e) {
+            return null;
+        }
+    }
+
+    private static synchronized Asciidoctor asciidoctor() {
+        if (asciidoctor == null) {
+            asciidoctor = Asciidoctor.Factory.create();
+        }
+
+        return asciidoctor;
+    }
+
+    /**
+     * Run git with the passed arguments, in the passed working directory - or in the current one if null.
+     *
+     * @return The standard output of git
+     */
+    private static String git(Path workingDirectory, String... arguments) throws application.IOException {
+        var command = new ArrayList<String>();
+
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+
+        var processBuilder = new ProcessBuilder(command);
+
+        if (workingDirectory != null) {
+            processBuilder.directory(workingDirectory.toFile());
+        }
+
+        processBuilder.environment().put("GIT_TERMINAL_PROMPT", "0");
+
+        try {
+            var process = processBuilder.start();
+            var error = new ByteArrayOutputStream();
+            // both outputs are drained before waiting for git, so that it never blocks on a full pipe
+            var errorReader = new Thread(() -> {
+                try {
+                    process.getErrorStream().transferTo(error);
+                } catch (IOException e) {
+                    // the standard error only details a failure, that the exit value reports anyway
+                }
+            });
+
+            errorReader.start();
+
+            var output = process.getInputStream().readAllBytes();
+
+            errorReader.join();
+
+            if (!process.waitFor(10, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+
+                throw new application.IOException(String.format("git %s timed out", arguments[0]));
+            }
+
+            if (process.exitValue() != 0) {
+                throw new application.IOException(String.format(
+                        "git %s failed: %s",
+                        arguments[0],
+                        error.toString(StandardCharsets.UTF_8).trim()
+                ));
+            }
+
+            return new String(output, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new application.IOException(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new application.IOException(String.format("git %s was interrupted", arguments[0]));
+        }
+    }
+
+    /**
+     * Write the passed `content` into the file located at the passed `path`, whose parent directory must exist, unless it already holds exactly that content.
+     * The content is written into a temporary sibling first, then moved over the file, so that a concurrent reader never sees it partially written.
+     */
+    private static boolean writeIfChanged(Path path, String content) throws IOException {
+        return writeIfChanged(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean writeIfChanged(Path path, byte[] bytes) throws IOException {
+        if (hasContent(path, bytes)) {
+            return false;
+        }
+
+        var temporaryPath = FileOutput.temporarySibling(path);
+
+        try {
+            Files.write(temporaryPath, bytes, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            FileOutput.move(temporaryPath, path);
+        }
+        finally {
+            deleteTemporary(temporaryPath);
+        }
+
+        return true;
+    }
+
+    private static void deleteTemporary(Path temporaryPath) {
+        try {
+            Files.deleteIfExists(temporaryPath);
+        }
+        catch (IOException e) {
+            // nothing more can be done about a temporary file that can't be removed
+        }
+    }
+
+    /**
+     * Compare the file located at the passed `path` with the passed `bytes`, reading it chunk by chunk and bailing out at the first difference.
+     */
+    private static boolean hasContent(Path path, byte[] bytes) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) != bytes.length) {
+            return false;
+        }
+
+        try (InputStream stream = Files.newInputStream(path)) {
+            var buffer = new byte[8192];
+            var offset = 0;
+            int read;
+
+            while ((read = stream.read(buffer)) != -1) {
+                if (offset + read > bytes.length || !Arrays.equals(buffer, 0, read, bytes, offset, offset + read)) {
+                    return false;
+                }
+
+                offset += read;
+            }
+
+            return offset == bytes.length;
+        }
+    }
 }
@@ -0,0 +1,115 @@
+package infrastructure;
+
+import application.Host;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A file locked against the other processes, and against the other threads of this process.
+ * <p>
+ * The lock of a file is held by a whole process, that can't acquire it twice: the threads of this process first acquire a read-write lock,
+ * then the first one of them acquires the lock of the file, that the last one releases. Since a thread holding the write lock holds it alone,
+ * the lock of the file is only ever shared by threads holding the read lock.
+ */
+class LockFile {
+    private static final ConcurrentHashMap<Path, LockFile> lockFiles = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final ReentrantReadWriteLock threadLock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private int holderCount = 0;
+
+    private LockFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Lock the file located at the passed `path`, waiting for the lock to be available.
+     */
+    static Host.Lock lock(Path path, boolean shared) throws IOException {
+        return lockFiles.computeIfAbsent(path.toAbsolutePath().normalize(), LockFile::new).acquire(shared);
+    }
+
+    private Host.Lock acquire(boolean shared) throws IOException {
+        var threadLock = shared ? this.threadLock.readLock() : this.threadLock.writeLock();
+
+        threadLock.lock();
+
+        try {
+            this.acquireFileLock(shared);
+        }
+        catch (IOException | RuntimeException e) {
+            threadLock.unlock();
+
+            throw e;
+        }
+
+        return new Held(this, threadLock);
+    }
+
+    private synchronized void acquireFileLock(boolean shared) throws IOException {
+        if (this.holderCount == 0) {
+            Files.createDirectories(this.path.getParent());
+
+            var channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            try {
+                // blocks until the other processes release their conflicting locks
+                channel.lock(0, Long.MAX_VALUE, shared);
+            }
+            catch (IOException | RuntimeException e) {
+                channel.close();
+
+                throw e;
+            }
+
+            this.channel = channel;
+        }
+
+        this.holderCount++;
+    }
+
+    private synchronized void releaseFileLock() {
+        this.holderCount--;
+
+        if (this.holderCount == 0) {
+            try {
+                // closing the channel releases the lock of the file
+                this.channel.close();
+            }
+            catch (IOException e) {
+                // nothing more can be done about a channel that can't be closed
+            }
+
+            this.channel = null;
+        }
+    }
+
+    private static class Held implements Host.Lock {
+        private final LockFile lockFile;
+        private final Lock threadLock;
+        private boolean released = false;
+
+        private Held(LockFile lockFile, Lock threadLock) {
+            this.lockFile = lockFile;
+            this.threadLock = threadLock;
+        }
+
+        public void close() {
+            if (this.released) {
+                return;
+            }
+
+            this.released = true;
+            this.lockFile.releaseFileLock();
+            this.threadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,762 @@
+package infrastructure;
+
+import domain.RegistrarClasses;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the class files of the registrars with ASM, so that they don't need to be compiled.
+ * <p>
+ * The class files are the ones of Java 17, the version the sources of the registrars are compiled for, with the stack map frames computed by ASM.
+ * The repository registrar is the one of the table layout, its nested classes becoming package-private classes of the same binary names.
+ * The profile registrar activates the rules of a profile from a string constant of their keys, rather than with an instruction per rule,
+ * so that its single method stays within the size limit of a method whatever the number of rules.
+ */
+class RegistrarClassFiles {
+    private static final String OBJECT = "java/lang/Object";
+    private static final String STRING = "java/lang/String";
+    private static final String LIST = "java/util/List";
+    private static final String MAP = "java/util/Map";
+    private static final String SONAR_RUNTIME = "org/sonar/api/SonarRuntime";
+    private static final String RULES_DEFINITION = "org/sonar/api/server/rule/RulesDefinition";
+    private static final String RULES_DEFINITION_CONTEXT = RULES_DEFINITION + "$Context";
+    private static final String NEW_REPOSITORY = RULES_DEFINITION + "$NewRepository";
+    private static final String RULE_METADATA_LOADER = "org/sonarsource/analyzer/commons/RuleMetadataLoader";
+    private static final String RULE_MANIFEST = "org/sonarsource/analyzer/commons/domain/RuleManifest";
+    private static final String RULE_MANIFEST_PARAMETER = RULE_MANIFEST + "Parameter";
+    private static final String RULE_MANIFEST_REMEDIATION = RULE_MANIFEST + "Remediation";
+    private static final String RULE_MANIFEST_CODE = RULE_MANIFEST + "Code";
+    private static final String PROFILES_DEFINITION = "org/sonar/api/server/profile/BuiltInQualityProfilesDefinition";
+    private static final String PROFILES_DEFINITION_CONTEXT = PROFILES_DEFINITION + "$Context";
+    private static final String NEW_PROFILE = PROFILES_DEFINITION + "$NewBuiltInQualityProfile";
+    private static final String NEW_ACTIVE_RULE = PROFILES_DEFINITION + "$NewBuiltInActiveRule";
+
+    /**
+     * The maximum number of characters of the rule keys activated from a single string constant, that fit a class file constant whatever the characters.
+     */
+    private static final int ACTIVATED_RULE_KEYS_LENGTH = 65535 / 3;
+
+    private RegistrarClassFiles() {
+    }
+
+    /**
+     * Computing the stack map frames may require the common super class of two classes, that ASM finds by loading them: neither the registrars
+     * nor the plugin API can be loaded here. The frames of the registrars only ever merge a class with null, so no class is looked up but this one.
+     */
+    private static class RegistrarClassWriter extends ClassWriter {
+        private RegistrarClassWriter(int access, String className, String... interfaceNames) {
+            super(ClassWriter.COMPUTE_FRAMES);
+
+            this.visit(Opcodes.V17, access | Opcodes.ACC_SUPER, className, null, OBJECT, interfaceNames.length == 0 ? null : interfaceNames);
+        }
+
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            return OBJECT;
+        }
+
+        /**
+         * Start writing a method, whose code is ended with `end`.
+         */
+        private MethodVisitor method(int access, String name, String descriptor) {
+            var method = this.visitMethod(access, name, descriptor, null, null);
+
+            method.visitCode();
+
+            return method;
+        }
+
+        private void field(int access, String name, String descriptor) {
+            this.visitField(access, name, descriptor, null, null).visitEnd();
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            this.visitEnd();
+
+            return super.toByteArray();
+        }
+    }
+
+    /**
+     * @return The class files of the passed registrars and of the helper classes of the repository registrar, by internal name
+     */
+    static Map<String, byte[]> write(RegistrarClasses registrars) {
+        var classFiles = repositoryRegistrar(
+                registrars.repositoryRegistrarName(),
+                registrars.compatibleLanguageKey(),
+                registrars.repositoryKey(),
+                registrars.table(),
+                registrars.externalizeDocumentation()
+        );
+
+        classFiles.put(
+                registrars.profileRegistrarName(),
+                profileRegistrar(registrars.profileRegistrarName(), registrars.compatibleLanguageKey(), registrars.repositoryKey(), registrars.ruleKeysByProfileName())
+        );
+
+        return classFiles;
+    }
+
+    /**
+     * @param className The internal name of the registrar
+     * @param table The chunks of the packed table of the rules, as written by a PackedTableWriter
+     * @param externalizeDocumentation Whether the documentation of the rules is loaded from resources, the table holding none
+     * @return The class files of the registrar and of its helper classes, by internal name
+     */
+    private static Map<String, byte[]> repositoryRegistrar(
+            String className,
+            String compatibleLanguageKey,
+            String repositoryKey,
+            List<String> table,
+            boolean externalizeDocumentation
+    ) {
+        var classFiles = new LinkedHashMap<String, byte[]>();
+        var packedTable = className + "$PackedTable";
+        var packedManifest = className + "$PackedManifest";
+        var packedRemediation = className + "$PackedRemediation";
+        var packedParameter = className + "$PackedParameter";
+        var packedCode = className + "$PackedCode";
+
+        classFiles.put(className, registrar(className, compatibleLanguageKey, repositoryKey, table, externalizeDocumentation, packedTable));
+        classFiles.put(packedTable, packedTable(packedTable, packedManifest, packedRemediation, packedParameter, packedCode));
+        classFiles.put(packedManifest, valueClass(
+                packedManifest,
+                RULE_MANIFEST,
+                new String[][] {
+                        {"name", "L" + STRING + ";"},
+                        {"defaultSeverity", "L" + STRING + ";"},
+                        {"htmlDocumentation", "L" + STRING + ";"},
+                        {"scope", "L" + STRING + ";"},
+                        {"status", "L" + STRING + ";"},
+                        {"title", "L" + STRING + ";"},
+                        {"type", "L" + STRING + ";"},
+                        {"tags", "L" + LIST + ";"},
+                        {"parameters", "L" + LIST + ";"},
+                        {"remediation", "L" + RULE_MANIFEST_REMEDIATION + ";"},
+                        {"code", "L" + RULE_MANIFEST_CODE + ";"}
+                },
+                externalizeDocumentation ? className : null
+        ));
+        classFiles.put(packedRemediation, valueClass(
+                packedRemediation,
+                RULE_MANIFEST_REMEDIATION,
+                new String[][] {
+                        {"func", "L" + STRING + ";"},
+                        {"constantCost", "L" + STRING + ";"},
+                        {"linearFactor", "L" + STRING + ";"},
+                        {"linearOffset", "L" + STRING + ";"},
+                        {"linearDescription", "L" + STRING + ";"}
+                },
+                null
+        ));
+        classFiles.put(packedParameter, valueClass(
+                packedParameter,
+                RULE_MANIFEST_PARAMETER,
+                new String[][] {
+                        {"defaultValue", "L" + STRING + ";"},
+                        {"description", "L" + STRING + ";"},
+                        {"names", "L" + STRING + ";"},
+                        {"type", "L" + STRING + ";"}
+                },
+                null
+        ));
+        classFiles.put(packedCode, valueClass(
+                packedCode,
+                RULE_MANIFEST_CODE,
+                new String[][] {
+                        {"impacts", "L" + MAP + ";"},
+                        {"attribute", "L" + STRING + ";"}
+                },
+                null
+        ));
+
+        return classFiles;
+    }
+
+    /**
+     * @param className The internal name of the registrar
+     * @param ruleKeysByProfileName The keys of the rules of every profile, in the order the profiles are defined in
+     * @return The class file of the profile registrar
+     */
+    private static byte[] profileRegistrar(
+            String className,
+            String compatibleLanguageKey,
+            String repositoryKey,
+            Map<String, List<String>> ruleKeysByProfileName
+    ) {
+        var classFile = new RegistrarClassWriter(Opcodes.ACC_PUBLIC, className, PROFILES_DEFINITION);
+
+        defaultConstructor(classFile, Opcodes.ACC_PUBLIC);
+
+        // activate(profile, repositoryKey, ruleKeys), the rule keys being separated by line breaks
+        var activate = classFile.method(
+                Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC,
+                "activate",
+                "(L" + NEW_PROFILE + ";L" + STRING + ";L" + STRING + ";)V"
+        );
+        var loop = new Label();
+        var end = new Label();
+
+        activate.visitVarInsn(Opcodes.ALOAD, 2);
+        activate.visitLdcInsn("\n");
+        activate.visitMethodInsn(Opcodes.INVOKEVIRTUAL, STRING, "split", "(L" + STRING + ";)[L" + STRING + ";", false);
+        activate.visitVarInsn(Opcodes.ASTORE, 3);
+        push(activate, 0);
+        activate.visitVarInsn(Opcodes.ISTORE, 4);
+        activate.visitLabel(loop);
+        activate.visitVarInsn(Opcodes.ILOAD, 4);
+        activate.visitVarInsn(Opcodes.ALOAD, 3);
+        activate.visitInsn(Opcodes.ARRAYLENGTH);
+        activate.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+        activate.visitVarInsn(Opcodes.ALOAD, 0);
+        activate.visitVarInsn(Opcodes.ALOAD, 1);
+        activate.visitVarInsn(Opcodes.ALOAD, 3);
+        activate.visitVarInsn(Opcodes.ILOAD, 4);
+        activate.visitInsn(Opcodes.AALOAD);
+        activate.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NEW_PROFILE, "activateRule", "(L" + STRING + ";L" + STRING + ";)L" + NEW_ACTIVE_RULE + ";", false);
+        activate.visitInsn(Opcodes.POP);
+        activate.visitIincInsn(4, 1);
+        activate.visitJumpInsn(Opcodes.GOTO, loop);
+        activate.visitLabel(end);
+        activate.visitInsn(Opcodes.RETURN);
+        end(activate);
+
+        var define = classFile.method(Opcodes.ACC_PUBLIC, "define", "(L" + PROFILES_DEFINITION_CONTEXT + ";)V");
+
+        for (var profile : ruleKeysByProfileName.entrySet()) {
+            define.visitVarInsn(Opcodes.ALOAD, 1);
+            define.visitLdcInsn(profile.getKey());
+            define.visitLdcInsn(compatibleLanguageKey);
+            define.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PROFILES_DEFINITION_CONTEXT, "createBuiltInQualityProfile", "(L" + STRING + ";L" + STRING + ";)L" + NEW_PROFILE + ";", false);
+            define.visitVarInsn(Opcodes.ASTORE, 2);
+
+            var ruleKeys = new StringBuilder();
+
+            for (var ruleKey : profile.getValue()) {
+                if (!ruleKeys.isEmpty() && ruleKeys.length() + 1 + ruleKey.length() > ACTIVATED_RULE_KEYS_LENGTH) {
+                    activate(define, className, repositoryKey, ruleKeys.toString());
+                    ruleKeys.setLength(0);
+                }
+
+                ruleKeys.append(ruleKeys.isEmpty() ? "" : "\n").append(ruleKey);
+            }
+
+            if (!ruleKeys.isEmpty()) {
+                activate(define, className, repositoryKey, ruleKeys.toString());
+            }
+
+            define.visitVarInsn(Opcodes.ALOAD, 2);
+            define.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NEW_PROFILE, "done", "()V", false);
+        }
+
+        define.visitInsn(Opcodes.RETURN);
+        end(define);
+
+        return classFile.toByteArray();
+    }
+
+    private static void defaultConstructor(RegistrarClassWriter classFile, int access) {
+        var constructor = classFile.method(access, "<init>", "()V");
+
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        end(constructor);
+    }
+
+    private static void activate(MethodVisitor define, String className, String repositoryKey, String ruleKeys) {
+        define.visitVarInsn(Opcodes.ALOAD, 2);
+        define.visitLdcInsn(repositoryKey);
+        define.visitLdcInsn(ruleKeys);
+        define.visitMethodInsn(Opcodes.INVOKESTATIC, className, "activate", "(L" + NEW_PROFILE + ";L" + STRING + ";L" + STRING + ";)V", false);
+    }
+
+    private static byte[] registrar(
+            String className,
+            String compatibleLanguageKey,
+            String repositoryKey,
+            List<String> table,
+            boolean externalizeDocumentation,
+            String packedTable
+    ) {
+        var classFile = new RegistrarClassWriter(Opcodes.ACC_PUBLIC, className, RULES_DEFINITION);
+
+        classFile.field(Opcodes.ACC_PROTECTED, "ruleMetadataLoader", "L" + RULE_METADATA_LOADER + ";");
+        classFile.field(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "TABLE", "[L" + STRING + ";");
+
+        var constructor = classFile.method(Opcodes.ACC_PUBLIC, "<init>", "(L" + SONAR_RUNTIME + ";)V");
+
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitTypeInsn(Opcodes.NEW, RULE_METADATA_LOADER);
+        constructor.visitInsn(Opcodes.DUP);
+        constructor.visitVarInsn(Opcodes.ALOAD, 1);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, RULE_METADATA_LOADER, "<init>", "(L" + SONAR_RUNTIME + ";)V", false);
+        constructor.visitFieldInsn(Opcodes.PUTFIELD, className, "ruleMetadataLoader", "L" + RULE_METADATA_LOADER + ";");
+        constructor.visitInsn(Opcodes.RETURN);
+        end(constructor);
+
+        var staticInitializer = classFile.method(Opcodes.ACC_STATIC, "<clinit>", "()V");
+
+        push(staticInitializer, table.size());
+        staticInitializer.visitTypeInsn(Opcodes.ANEWARRAY, STRING);
+
+        for (var index = 0; index < table.size(); index++) {
+            staticInitializer.visitInsn(Opcodes.DUP);
+            push(staticInitializer, index);
+            staticInitializer.visitLdcInsn(table.get(index));
+            staticInitializer.visitInsn(Opcodes.AASTORE);
+        }
+
+        staticInitializer.visitFieldInsn(Opcodes.PUTSTATIC, className, "TABLE", "[L" + STRING + ";");
+        staticInitializer.visitInsn(Opcodes.RETURN);
+        end(staticInitializer);
+
+        var define = classFile.method(Opcodes.ACC_PUBLIC, "define", "(L" + RULES_DEFINITION_CONTEXT + ";)V");
+        var loop = new Label();
+        var end = new Label();
+
+        define.visitVarInsn(Opcodes.ALOAD, 1);
+        define.visitLdcInsn(repositoryKey);
+        define.visitLdcInsn(compatibleLanguageKey);
+        define.visitMethodInsn(Opcodes.INVOKEVIRTUAL, RULES_DEFINITION_CONTEXT, "createRepository", "(L" + STRING + ";L" + STRING + ";)L" + NEW_REPOSITORY + ";", false);
+        define.visitLdcInsn("SonarAnalyzer");
+        define.visitMethodInsn(Opcodes.INVOKEINTERFACE, NEW_REPOSITORY, "setName", "(L" + STRING + ";)L" + NEW_REPOSITORY + ";", true);
+        define.visitVarInsn(Opcodes.ASTORE, 2);
+        define.visitTypeInsn(Opcodes.NEW, packedTable);
+        define.visitInsn(Opcodes.DUP);
+        define.visitLdcInsn("");
+        define.visitFieldInsn(Opcodes.GETSTATIC, className, "TABLE", "[L" + STRING + ";");
+        define.visitMethodInsn(Opcodes.INVOKESTATIC, STRING, "join", "(Ljava/lang/CharSequence;[Ljava/lang/CharSequence;)L" + STRING + ";", false);
+        define.visitMethodInsn(Opcodes.INVOKESPECIAL, packedTable, "<init>", "(L" + STRING + ";)V", false);
+        define.visitVarInsn(Opcodes.ASTORE, 3);
+        define.visitLabel(loop);
+        define.visitVarInsn(Opcodes.ALOAD, 3);
+        define.visitMethodInsn(Opcodes.INVOKEVIRTUAL, packedTable, "hasNext", "()Z", false);
+        define.visitJumpInsn(Opcodes.IFEQ, end);
+        define.visitVarInsn(Opcodes.ALOAD, 0);
+        define.visitFieldInsn(Opcodes.GETFIELD, className, "ruleMetadataLoader", "L" + RULE_METADATA_LOADER + ";");
+        define.visitVarInsn(Opcodes.ALOAD, 2);
+        define.visitVarInsn(Opcodes.ALOAD, 3);
+        define.visitMethodInsn(Opcodes.INVOKEVIRTUAL, packedTable, "nextManifest", "()L" + RULE_MANIFEST + ";", false);
+        define.visitMethodInsn(Opcodes.INVOKEVIRTUAL, RULE_METADATA_LOADER, "createRuleFromRuleManifest", "(L" + NEW_REPOSITORY + ";L" + RULE_MANIFEST + ";)V", false);
+        define.visitJumpInsn(Opcodes.GOTO, loop);
+        define.visitLabel(end);
+        define.visitVarInsn(Opcodes.ALOAD, 2);
+        define.visitMethodInsn(Opcodes.INVOKEINTERFACE, NEW_REPOSITORY, "done", "()V", true);
+        define.visitInsn(Opcodes.RETURN);
+        end(define);
+
+        if (externalizeDocumentation) {
+            documentationLoader(classFile, className, repositoryKey);
+        }
+
+        return classFile.toByteArray();
+    }
+
+    /**
+     * Write the method that loads the documentation of a rule from its resource: documentation(name), package-private so that the manifests can call it.
+     */
+    private static void documentationLoader(RegistrarClassWriter classFile, String className, String repositoryKey) {
+        var documentation = classFile.method(Opcodes.ACC_STATIC, "documentation", "(L" + STRING + ";)L" + STRING + ";");
+        var found = new Label();
+        var readStart = new Label();
+        var readEnd = new Label();
+        var readFailure = new Label();
+        var ioFailure = new Label();
+
+        // the handlers are declared before their labels are visited, the innermost first
+        documentation.visitTryCatchBlock(readStart, readEnd, readFailure, null);
+        documentation.visitTryCatchBlock(readStart, ioFailure, ioFailure, "java/io/IOException");
+
+        // resourceName = "<repositoryKey>/" + name + ".html"
+        concatenate(documentation, repositoryKey + "/", () -> documentation.visitVarInsn(Opcodes.ALOAD, 0));
+        documentation.visitLdcInsn(".html");
+        documentation.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(L" + STRING + ";)Ljava/lang/StringBuilder;", false);
+        documentation.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()L" + STRING + ";", false);
+        documentation.visitVarInsn(Opcodes.ASTORE, 1);
+
+        // stream = <className>.class.getResourceAsStream(resourceName)
+        documentation.visitLdcInsn(Type.getObjectType(className));
+        documentation.visitVarInsn(Opcodes.ALOAD, 1);
+        documentation.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Class", "getResourceAsStream", "(L" + STRING + ";)Ljava/io/InputStream;", false);
+        documentation.visitVarInsn(Opcodes.ASTORE, 2);
+        documentation.visitVarInsn(Opcodes.ALOAD, 2);
+        documentation.visitJumpInsn(Opcodes.IFNONNULL, found);
+        documentation.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalStateException");
+        documentation.visitInsn(Opcodes.DUP);
+        concatenate(documentation, "Missing rule documentation resource ", () -> documentation.visitVarInsn(Opcodes.ALOAD, 1));
+        documentation.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()L" + STRING + ";", false);
+        documentation.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/IllegalStateException", "<init>", "(L" + STRING + ";)V", false);
+        documentation.visitInsn(Opcodes.ATHROW);
+
+        // the stream is closed whether it is read or not, and an IOException becomes an UncheckedIOException
+        documentation.visitLabel(found);
+        documentation.visitLabel(readStart);
+        documentation.visitTypeInsn(Opcodes.NEW, STRING);
+        documentation.visitInsn(Opcodes.DUP);
+        documentation.visitVarInsn(Opcodes.ALOAD, 2);
+        documentation.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/InputStream", "readAllBytes", "()[B", false);
+        documentation.visitFieldInsn(Opcodes.GETSTATIC, "java/nio/charset/StandardCharsets", "UTF_8", "Ljava/nio/charset/Charset;");
+        documentation.visitMethodInsn(Opcodes.INVOKESPECIAL, STRING, "<init>", "([BLjava/nio/charset/Charset;)V", false);
+        documentation.visitVarInsn(Opcodes.ASTORE, 3);
+        documentation.visitLabel(readEnd);
+        documentation.visitVarInsn(Opcodes.ALOAD, 2);
+        documentation.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/InputStream", "close", "()V", false);
+        documentation.visitVarInsn(Opcodes.ALOAD, 3);
+        documentation.visitInsn(Opcodes.ARETURN);
+        documentation.visitLabel(readFailure);
+        documentation.visitVarInsn(Opcodes.ASTORE, 4);
+        documentation.visitVarInsn(Opcodes.ALOAD, 2);
+        documentation.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/InputStream", "close", "()V", false);
+        documentation.visitVarInsn(Opcodes.ALOAD, 4);
+        documentation.visitInsn(Opcodes.ATHROW);
+        documentation.visitLabel(ioFailure);
+        documentation.visitVarInsn(Opcodes.ASTORE, 4);
+        documentation.visitTypeInsn(Opcodes.NEW, "java/io/UncheckedIOException");
+        documentation.visitInsn(Opcodes.DUP);
+        documentation.visitVarInsn(Opcodes.ALOAD, 4);
+        documentation.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/io/UncheckedIOException", "<init>", "(Ljava/io/IOException;)V", false);
+        documentation.visitInsn(Opcodes.ATHROW);
+        end(documentation);
+    }
+
+    /**
+     * Push a StringBuilder holding the passed prefix, followed by the string pushed by the passed `value`.
+     */
+    private static void concatenate(MethodVisitor method, String prefix, Runnable value) {
+        method.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+        method.visitInsn(Opcodes.DUP);
+        method.visitLdcInsn(prefix);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "(L" + STRING + ";)V", false);
+        value.run();
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(L" + STRING + ";)Ljava/lang/StringBuilder;", false);
+    }
+
+    /**
+     * Write the class that reads the packed table back, field after field - see PackedTableWriter.
+     */
+    private static byte[] packedTable(String className, String packedManifest, String packedRemediation, String packedParameter, String packedCode) {
+        var classFile = new RegistrarClassWriter(Opcodes.ACC_FINAL, className);
+
+        classFile.field(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "data", "L" + STRING + ";");
+        classFile.field(Opcodes.ACC_PRIVATE, "position", "I");
+
+        var constructor = classFile.method(0, "<init>", "(L" + STRING + ";)V");
+
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitVarInsn(Opcodes.ALOAD, 1);
+        constructor.visitFieldInsn(Opcodes.PUTFIELD, className, "data", "L" + STRING + ";");
+        constructor.visitInsn(Opcodes.RETURN);
+        end(constructor);
+
+        var hasNext = classFile.method(0, "hasNext", "()Z");
+        var atEnd = new Label();
+
+        hasNext.visitVarInsn(Opcodes.ALOAD, 0);
+        hasNext.visitFieldInsn(Opcodes.GETFIELD, className, "position", "I");
+        hasNext.visitVarInsn(Opcodes.ALOAD, 0);
+        hasNext.visitFieldInsn(Opcodes.GETFIELD, className, "data", "L" + STRING + ";");
+        hasNext.visitMethodInsn(Opcodes.INVOKEVIRTUAL, STRING, "length", "()I", false);
+        hasNext.visitJumpInsn(Opcodes.IF_ICMPGE, atEnd);
+        push(hasNext, 1);
+        hasNext.visitInsn(Opcodes.IRETURN);
+        hasNext.visitLabel(atEnd);
+        push(hasNext, 0);
+        hasNext.visitInsn(Opcodes.IRETURN);
+        end(hasNext);
+
+        // colon = data.indexOf(':', position); length = parseInt(data.substring(position, colon))
+        var next = classFile.method(0, "next", "()L" + STRING + ";");
+        var notNull = new Label();
+
+        next.visitVarInsn(Opcodes.ALOAD, 0);
+        next.visitFieldInsn(Opcodes.GETFIELD, className, "data", "L" + STRING + ";");
+        push(next, ':');
+        next.visitVarInsn(Opcodes.ALOAD, 0);
+        next.visitFieldInsn(Opcodes.GETFIELD, className, "position", "I");
+        next.visitMethodInsn(Opcodes.INVOKEVIRTUAL, STRING, "indexOf", "(II)I", false);
+        next.visitVarInsn(Opcodes.ISTORE, 1);
+        next.visitVarInsn(Opcodes.ALOAD, 0);
+        next.visitFieldInsn(Opcodes.GETFIELD, className, "data", "L" + STRING + ";");
+        next.visitVarInsn(Opcodes.ALOAD, 0);
+        next.visitFieldInsn(Opcodes.GETFIELD, className, "position", "I");
+        next.visitVarInsn(Opcodes.ILOAD, 1);
+        next.visitMethodInsn(Opcodes.INVOKEVIRTUAL, STRING, "substring", "(II)L" + STRING + ";", false);
+        next.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Integer", "parseInt", "(L" + STRING + ";)I", false);
+        next.visitVarInsn(Opcodes.ISTORE, 2);
+        next.visitVarInsn(Opcodes.ILOAD, 2);
+        next.visitJumpInsn(Opcodes.IFGE, notNull);
+        next.visitVarInsn(Opcodes.ALOAD, 0);
+        next.visitVarInsn(Opcodes.ILOAD, 1);
+        push(next, 1);
+        next.visitInsn(Opcodes.IADD);
+        next.visitFieldInsn(Opcodes.PUTFIELD, className, "position", "I");
+        next.visitInsn(Opcodes.ACONST_NULL);
+        next.visitInsn(Opcodes.ARETURN);
+        next.visitLabel(notNull);
+        next.visitVarInsn(Opcodes.ALOAD, 0);
+        next.visitVarInsn(Opcodes.ILOAD, 1);
+        push(next, 1);
+        next.visitInsn(Opcodes.IADD);
+        next.visitVarInsn(Opcodes.ILOAD, 2);
+        next.visitInsn(Opcodes.IADD);
+        next.visitFieldInsn(Opcodes.PUTFIELD, className, "position", "I");
+        next.visitVarInsn(Opcodes.ALOAD, 0);
+        next.visitFieldInsn(Opcodes.GETFIELD, className, "data", "L" + STRING + ";");
+        next.visitVarInsn(Opcodes.ILOAD, 1);
+        push(next, 1);
+        next.visitInsn(Opcodes.IADD);
+        next.visitVarInsn(Opcodes.ALOAD, 0);
+        next.visitFieldInsn(Opcodes.GETFIELD, className, "position", "I");
+        next.visitMethodInsn(Opcodes.INVOKEVIRTUAL, STRING, "substring", "(II)L" + STRING + ";", false);
+        next.visitInsn(Opcodes.ARETURN);
+        end(next);
+
+        var nextInt = classFile.method(0, "nextInt", "()I");
+
+        nextInt.visitVarInsn(Opcodes.ALOAD, 0);
+        nextInt.visitMethodInsn(Opcodes.INVOKEVIRTUAL, className, "next", "()L" + STRING + ";", false);
+        nextInt.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Integer", "parseInt", "(L" + STRING + ";)I", false);
+        nextInt.visitInsn(Opcodes.IRETURN);
+        end(nextInt);
+
+        nextManifest(classFile, className, packedManifest, packedRemediation, packedParameter, packedCode);
+
+        return classFile.toByteArray();
+    }
+
+    /**
+     * Write nextManifest(), that reads the fields of a rule in the order of renderTableRepositoryRegistrar, into the local variables:
+     * 1 to 7 the strings from name to type, 8 the tags, 9 the index of the loops, 10 the parameters, 11 the remediation, 12 the code,
+     * 13 the impacts and 14 their count.
+     */
+    private static void nextManifest(
+            RegistrarClassWriter classFile,
+            String className,
+            String packedManifest,
+            String packedRemediation,
+            String packedParameter,
+            String packedCode
+    ) {
+        var method = classFile.method(0, "nextManifest", "()L" + RULE_MANIFEST + ";");
+        Runnable next = () -> {
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, className, "next", "()L" + STRING + ";", false);
+        };
+        Runnable nextInt = () -> {
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, className, "nextInt", "()I", false);
+        };
+
+        for (var local = 1; local <= 7; local++) {
+            next.run();
+            method.visitVarInsn(Opcodes.ASTORE, local);
+        }
+
+        // tags = new String[nextInt()], filled with next()
+        arrayOf(method, STRING, 8, nextInt, next);
+
+        // parameters = new RuleManifestParameter[nextInt()], filled with new PackedParameter(next(), next(), next(), next())
+        arrayOf(method, RULE_MANIFEST_PARAMETER, 10, nextInt, () -> construct(method, packedParameter, 4, next));
+
+        // remediation = nextInt() == 0 ? null : new PackedRemediation(next() * 5)
+        var noRemediation = new Label();
+
+        method.visitInsn(Opcodes.ACONST_NULL);
+        method.visitVarInsn(Opcodes.ASTORE, 11);
+        nextInt.run();
+        method.visitJumpInsn(Opcodes.IFEQ, noRemediation);
+        construct(method, packedRemediation, 5, next);
+        method.visitVarInsn(Opcodes.ASTORE, 11);
+        method.visitLabel(noRemediation);
+
+        // code = nextInt() == 0 ? null : new PackedCode(Map.copyOf(impacts), next())
+        var noCode = new Label();
+        var impactLoop = new Label();
+        var impactEnd = new Label();
+
+        method.visitInsn(Opcodes.ACONST_NULL);
+        method.visitVarInsn(Opcodes.ASTORE, 12);
+        nextInt.run();
+        method.visitJumpInsn(Opcodes.IFEQ, noCode);
+        method.visitTypeInsn(Opcodes.NEW, "java/util/HashMap");
+        method.visitInsn(Opcodes.DUP);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/util/HashMap", "<init>", "()V", false);
+        method.visitVarInsn(Opcodes.ASTORE, 13);
+        nextInt.run();
+        method.visitVarInsn(Opcodes.ISTORE, 14);
+        method.visitLabel(impactLoop);
+        method.visitVarInsn(Opcodes.ILOAD, 14);
+        method.visitJumpInsn(Opcodes.IFLE, impactEnd);
+        method.visitVarInsn(Opcodes.ALOAD, 13);
+        next.run();
+        next.run();
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/util/HashMap", "put", "(L" + OBJECT + ";L" + OBJECT + ";)L" + OBJECT + ";", false);
+        method.visitInsn(Opcodes.POP);
+        method.visitIincInsn(14, -1);
+        method.visitJumpInsn(Opcodes.GOTO, impactLoop);
+        method.visitLabel(impactEnd);
+        method.visitTypeInsn(Opcodes.NEW, packedCode);
+        method.visitInsn(Opcodes.DUP);
+        method.visitVarInsn(Opcodes.ALOAD, 13);
+        method.visitMethodInsn(Opcodes.INVOKESTATIC, MAP, "copyOf", "(L" + MAP + ";)L" + MAP + ";", true);
+        next.run();
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, packedCode, "<init>", "(L" + MAP + ";L" + STRING + ";)V", false);
+        method.visitVarInsn(Opcodes.ASTORE, 12);
+        method.visitLabel(noCode);
+
+        method.visitTypeInsn(Opcodes.NEW, packedManifest);
+        method.visitInsn(Opcodes.DUP);
+
+        for (var local = 1; local <= 7; local++) {
+            method.visitVarInsn(Opcodes.ALOAD, local);
+        }
+
+        listOf(method, 8);
+        listOf(method, 10);
+        method.visitVarInsn(Opcodes.ALOAD, 11);
+        method.visitVarInsn(Opcodes.ALOAD, 12);
+        method.visitMethodInsn(
+                Opcodes.INVOKESPECIAL,
+                packedManifest,
+                "<init>",
+                "(" + ("L" + STRING + ";").repeat(7) + ("L" + LIST + ";").repeat(2) + "L" + RULE_MANIFEST_REMEDIATION + ";L" + RULE_MANIFEST_CODE + ";)V",
+                false
+        );
+        method.visitInsn(Opcodes.ARETURN);
+        end(method);
+    }
+
+    /**
+     * Store into the passed `local` an array of the passed element type, of the length pushed by `length`, every element being pushed by `element`.
+     * The index of the loop is held by local variable 9.
+     */
+    private static void arrayOf(MethodVisitor method, String elementType, int local, Runnable length, Runnable element) {
+        var loop = new Label();
+        var end = new Label();
+
+        length.run();
+        method.visitTypeInsn(Opcodes.ANEWARRAY, elementType);
+        method.visitVarInsn(Opcodes.ASTORE, local);
+        push(method, 0);
+        method.visitVarInsn(Opcodes.ISTORE, 9);
+        method.visitLabel(loop);
+        method.visitVarInsn(Opcodes.ILOAD, 9);
+        method.visitVarInsn(Opcodes.ALOAD, local);
+        method.visitInsn(Opcodes.ARRAYLENGTH);
+        method.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+        method.visitVarInsn(Opcodes.ALOAD, local);
+        method.visitVarInsn(Opcodes.ILOAD, 9);
+        element.run();
+        method.visitInsn(Opcodes.AASTORE);
+        method.visitIincInsn(9, 1);
+        method.visitJumpInsn(Opcodes.GOTO, loop);
+        method.visitLabel(end);
+    }
+
+    /**
+     * Push a new instance of the passed value class, constructed from `fieldCount` strings, every one pushed by `next`.
+     */
+    private static void construct(MethodVisitor method, String className, int fieldCount, Runnable next) {
+        method.visitTypeInsn(Opcodes.NEW, className);
+        method.visitInsn(Opcodes.DUP);
+
+        for (var field = 0; field < fieldCount; field++) {
+            next.run();
+        }
+
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, className, "<init>", "(" + ("L" + STRING + ";").repeat(fieldCount) + ")V", false);
+    }
+
+    /**
+     * Push an unmodifiable list of the elements of the array held by the passed `local`.
+     */
+    private static void listOf(MethodVisitor method, int local) {
+        method.visitVarInsn(Opcodes.ALOAD, local);
+        method.visitMethodInsn(Opcodes.INVOKESTATIC, LIST, "of", "([L" + OBJECT + ";)L" + LIST + ";", true);
+    }
+
+    /**
+     * Push the passed int constant, with the shortest instruction.
+     */
+    private static void push(MethodVisitor method, int value) {
+        if (value >= -1 && value <= 5) {
+            method.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            method.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            method.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+
+    /**
+     * End the code of the passed method, whose maximum stack size and local variables are computed along its frames.
+     */
+    private static void end(MethodVisitor method) {
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    /**
+     * Write a class that implements the passed interface with the passed fields - every one of them returned by the method of the same name.
+     *
+     * @param fields The name and descriptor of every field, in the order of the constructor parameters
+     * @param documentationLoader The internal name of the class loading the documentation of the rules - for a manifest, whose htmlDocumentation()
+     *                            then returns the documentation of its name - or null
+     */
+    private static byte[] valueClass(String className, String interfaceName, String[][] fields, String documentationLoader) {
+        var classFile = new RegistrarClassWriter(Opcodes.ACC_FINAL, className, interfaceName);
+        var constructorDescriptor = new StringBuilder("(");
+
+        for (var field : fields) {
+            classFile.field(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, field[0], field[1]);
+            constructorDescriptor.append(field[1]);
+        }
+
+        var constructor = classFile.method(0, "<init>", constructorDescriptor.append(")V").toString());
+
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+
+        for (var index = 0; index < fields.length; index++) {
+            constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitVarInsn(Opcodes.ALOAD, 1 + index);
+            constructor.visitFieldInsn(Opcodes.PUTFIELD, className, fields[index][0], fields[index][1]);
+        }
+
+        constructor.visitInsn(Opcodes.RETURN);
+        end(constructor);
+
+        for (var field : fields) {
+            var getter = classFile.method(Opcodes.ACC_PUBLIC, field[0], "()" + field[1]);
+
+            getter.visitVarInsn(Opcodes.ALOAD, 0);
+
+            if (documentationLoader != null && field[0].equals("htmlDocumentation")) {
+                getter.visitFieldInsn(Opcodes.GETFIELD, className, "name", "L" + STRING + ";");
+                getter.visitMethodInsn(Opcodes.INVOKESTATIC, documentationLoader, "documentation", "(L" + STRING + ";)L" + STRING + ";", false);
+            } else {
+                getter.visitFieldInsn(Opcodes.GETFIELD, className, field[0], field[1]);
+            }
+
+            getter.visitInsn(Opcodes.ARETURN);
+            end(getter);
+        }
+
+        return classFile.toByteArray();
+    }
+}
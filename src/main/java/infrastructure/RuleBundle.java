@@ -0,0 +1,188 @@
+package infrastructure;
+
+import domain.RuleData;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A single file holding the manifests and descriptions of a set of rules, indexed by rule key.
+ * <p>
+ * All integers are big-endian, and all strings are UTF-8 encoded:
+ * <pre>
+ * header: magic "RSPB" (4 bytes), version (int)
+ * data:   the manifest then the description of every rule
+ * index:  entry count (int), then for every entry, sorted by key:
+ *         key length (unsigned short), key, manifest offset (long), manifest length (int), description offset (long), description length (int)
+ * footer: index offset (long), magic "RSPB" (4 bytes)
+ * </pre>
+ * Offsets are relative to the start of the file, so that a reader only has to read the footer and the index to locate any rule.
+ * <p>
+ * The reader only depends on the JDK, so that analyzers can load a bundle at runtime - either memory-mapped from a file, or from the bytes of a classpath resource.
+ */
+public class RuleBundle {
+    private static final byte[] MAGIC = "RSPB".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int FOOTER_LENGTH = Long.BYTES + 4;
+
+    private record Entry(String key, long manifestOffset, int manifestLength, long descriptionOffset, int descriptionLength) {
+    }
+
+    private final ByteBuffer buffer;
+    private final String[] keys;
+    private final long[] manifestOffsets;
+    private final int[] manifestLengths;
+    private final long[] descriptionOffsets;
+    private final int[] descriptionLengths;
+
+    private RuleBundle(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        var footerOffset = buffer.limit() - FOOTER_LENGTH;
+
+        if (footerOffset < MAGIC.length + Integer.BYTES || !hasMagic(buffer, 0) || !hasMagic(buffer, footerOffset + Long.BYTES)) {
+            throw new IOException("Not a rule bundle");
+        }
+
+        if (buffer.getInt(MAGIC.length) != VERSION) {
+            throw new IOException(String.format("Unsupported rule bundle version %d", buffer.getInt(MAGIC.length)));
+        }
+
+        var index = buffer.duplicate().position((int) buffer.getLong(footerOffset));
+        var count = index.getInt();
+
+        this.keys = new String[count];
+        this.manifestOffsets = new long[count];
+        this.manifestLengths = new int[count];
+        this.descriptionOffsets = new long[count];
+        this.descriptionLengths = new int[count];
+
+        for (var entry = 0; entry < count; entry++) {
+            var key = new byte[Short.toUnsignedInt(index.getShort())];
+
+            index.get(key);
+
+            this.keys[entry] = new String(key, StandardCharsets.UTF_8);
+            this.manifestOffsets[entry] = index.getLong();
+            this.manifestLengths[entry] = index.getInt();
+            this.descriptionOffsets[entry] = index.getLong();
+            this.descriptionLengths[entry] = index.getInt();
+        }
+    }
+
+    /**
+     * Open the bundle located at the passed `path`, by memory-mapping it.
+     */
+    public static RuleBundle open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new RuleBundle(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read the bundle held by the passed `buffer` - for example the bytes of a classpath resource.
+     */
+    public static RuleBundle wrap(ByteBuffer buffer) throws IOException {
+        return new RuleBundle(buffer.slice());
+    }
+
+    /**
+     * Write the passed rules into a bundle, to the passed `stream`.
+     * The rules are consumed one by one, and only their index entries are held until the index is written, after their data.
+     */
+    public static void write(OutputStream stream, Iterator<RuleData> rules) throws IOException {
+        var output = new DataOutputStream(new BufferedOutputStream(stream));
+        var entries = new ArrayList<Entry>();
+        var offset = (long) MAGIC.length + Integer.BYTES;
+
+        output.write(MAGIC);
+        output.writeInt(VERSION);
+
+        while (rules.hasNext()) {
+            var rule = rules.next();
+            var manifest = rule.manifest().getBytes(StandardCharsets.UTF_8);
+            var description = rule.description().getBytes(StandardCharsets.UTF_8);
+
+            output.write(manifest);
+            output.write(description);
+
+            entries.add(new Entry(rule.key(), offset, manifest.length, offset + manifest.length, description.length));
+            offset += manifest.length + description.length;
+        }
+
+        // the index is sorted by key, so that readers can binary search it
+        entries.sort(Comparator.comparing(Entry::key));
+
+        output.writeInt(entries.size());
+
+        for (var entry : entries) {
+            var key = entry.key().getBytes(StandardCharsets.UTF_8);
+
+            output.writeShort(key.length);
+            output.write(key);
+            output.writeLong(entry.manifestOffset());
+            output.writeInt(entry.manifestLength());
+            output.writeLong(entry.descriptionOffset());
+            output.writeInt(entry.descriptionLength());
+        }
+
+        output.writeLong(offset);
+        output.write(MAGIC);
+        output.flush();
+    }
+
+    /**
+     * @return The keys of the rules held by the bundle, in ascending order
+     */
+    public List<String> keys() {
+        return List.of(this.keys);
+    }
+
+    /**
+     * @return The JSON manifest of the rule identified by the passed `key`, or null if the bundle doesn't hold such a rule
+     */
+    public String manifest(String key) {
+        var entry = Arrays.binarySearch(this.keys, key);
+
+        return entry < 0 ? null : this.read(this.manifestOffsets[entry], this.manifestLengths[entry]);
+    }
+
+    /**
+     * @return The HTML description of the rule identified by the passed `key`, or null if the bundle doesn't hold such a rule
+     */
+    public String description(String key) {
+        var entry = Arrays.binarySearch(this.keys, key);
+
+        return entry < 0 ? null : this.read(this.descriptionOffsets[entry], this.descriptionLengths[entry]);
+    }
+
+    private String read(long offset, int length) {
+        var bytes = new byte[length];
+
+        this.buffer.get((int) offset, bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean hasMagic(ByteBuffer buffer, int offset) {
+        for (var index = 0; index < MAGIC.length; index++) {
+            if (buffer.get(offset + index) != MAGIC[index]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,281 @@
+package infrastructure;
+
+import domain.Code;
+import domain.Parameter;
+import domain.Remediation;
+import domain.Rule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The binary encoding of a list of materialized rules, used to cache them across builds.
+ * <p>
+ * All integers are big-endian, and all strings are UTF-8 encoded:
+ * <pre>
+ * header:  magic "RSPR" (4 bytes), version (int), body length (int), CRC-32 of the body (int)
+ * body:    key, string count (int), then every string: length (int), bytes
+ *          rule count (int), then every rule as string references (int) - -1 standing for null
+ * </pre>
+ * Every distinct string is stored once, in the string table, so that values shared by many rules - types, severities, tags... -
+ * are stored once and decoded into a single instance.
+ */
+public class RuleCodec {
+    private static final byte[] MAGIC = "RSPR".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 3 * Integer.BYTES;
+
+    /**
+     * Write the passed rules, cached under the passed `key`, to the passed `stream`.
+     */
+    public static void write(OutputStream stream, String key, List<Rule> rules) throws IOException {
+        var strings = new LinkedHashMap<String, Integer>();
+        var references = new ByteArrayOutputStream();
+        var referenceOutput = new DataOutputStream(references);
+
+        referenceOutput.writeInt(rules.size());
+
+        for (var rule : rules) {
+            writeString(referenceOutput, strings, rule.name());
+            writeString(referenceOutput, strings, rule.htmlDocumentation());
+            writeString(referenceOutput, strings, rule.type());
+            writeString(referenceOutput, strings, rule.defaultSeverity());
+            writeStrings(referenceOutput, strings, rule.tags());
+            writeString(referenceOutput, strings, rule.scope());
+
+            var remediation = rule.remediation();
+
+            referenceOutput.writeBoolean(remediation != null);
+
+            if (remediation != null) {
+                writeString(referenceOutput, strings, remediation.function());
+                writeString(referenceOutput, strings, remediation.cost());
+                writeString(referenceOutput, strings, remediation.linearFactor());
+                writeString(referenceOutput, strings, remediation.linearOffset());
+                writeString(referenceOutput, strings, remediation.linearDescription());
+            }
+
+            writeString(referenceOutput, strings, rule.title());
+            referenceOutput.writeInt(rule.parameters().size());
+
+            for (var parameter : rule.parameters()) {
+                writeString(referenceOutput, strings, parameter.name());
+                writeString(referenceOutput, strings, parameter.description());
+                writeString(referenceOutput, strings, parameter.type());
+                writeString(referenceOutput, strings, parameter.defaultValue());
+            }
+
+            writeStrings(referenceOutput, strings, rule.compatibleLanguages());
+            writeStrings(referenceOutput, strings, rule.qualityProfiles());
+            writeString(referenceOutput, strings, rule.status());
+
+            var code = rule.code();
+
+            referenceOutput.writeBoolean(code != null);
+
+            if (code != null) {
+                referenceOutput.writeInt(code.impacts().size());
+
+                for (var impact : code.impacts().entrySet()) {
+                    writeString(referenceOutput, strings, impact.getKey());
+                    writeString(referenceOutput, strings, impact.getValue());
+                }
+
+                writeString(referenceOutput, strings, code.attribute());
+            }
+        }
+
+        referenceOutput.flush();
+
+        var body = new ByteArrayOutputStream();
+        var bodyOutput = new DataOutputStream(body);
+
+        writeBytes(bodyOutput, key.getBytes(StandardCharsets.UTF_8));
+        bodyOutput.writeInt(strings.size());
+
+        for (var string : strings.keySet()) {
+            writeBytes(bodyOutput, string.getBytes(StandardCharsets.UTF_8));
+        }
+
+        references.writeTo(bodyOutput);
+        bodyOutput.flush();
+
+        var checksum = new CRC32();
+
+        checksum.update(body.toByteArray());
+
+        var output = new DataOutputStream(stream);
+
+        output.write(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(body.size());
+        output.writeInt((int) checksum.getValue());
+        body.writeTo(output);
+        output.flush();
+    }
+
+    /**
+     * Read the rules held by the passed `buffer`.
+     *
+     * @param key The key the rules must have been cached under
+     * @throws IOException If the buffer doesn't hold rules cached under that key, or if it is corrupted
+     */
+    public static List<Rule> read(ByteBuffer buffer, String key) throws IOException {
+        if (buffer.remaining() < HEADER_LENGTH) {
+            throw new IOException("Not a rule cache");
+        }
+
+        var magic = new byte[MAGIC.length];
+
+        buffer.get(magic);
+
+        if (!Arrays.equals(magic, MAGIC) || buffer.getInt() != VERSION) {
+            throw new IOException("Not a rule cache, or an unsupported version of it");
+        }
+
+        var bodyLength = buffer.getInt();
+        var expectedChecksum = buffer.getInt();
+
+        if (bodyLength != buffer.remaining()) {
+            throw new IOException("Truncated rule cache");
+        }
+
+        var checksum = new CRC32();
+
+        checksum.update(buffer.duplicate());
+
+        if ((int) checksum.getValue() != expectedChecksum) {
+            throw new IOException("Corrupted rule cache");
+        }
+
+        try {
+            if (!readUtf8(buffer).equals(key)) {
+                throw new IOException("Rule cache of another key");
+            }
+
+            var strings = new String[buffer.getInt()];
+
+            for (var index = 0; index < strings.length; index++) {
+                strings[index] = readUtf8(buffer);
+            }
+
+            var ruleCount = buffer.getInt();
+            var rules = new ArrayList<Rule>(ruleCount);
+
+            for (var index = 0; index < ruleCount; index++) {
+                var name = readString(buffer, strings);
+                var htmlDocumentation = readString(buffer, strings);
+                var type = readString(buffer, strings);
+                var defaultSeverity = readString(buffer, strings);
+                var tags = readStrings(buffer, strings);
+                var scope = readString(buffer, strings);
+                var remediation = buffer.get() == 0 ? null : new Remediation(
+                        readString(buffer, strings),
+                        readString(buffer, strings),
+                        readString(buffer, strings),
+                        readString(buffer, strings),
+                        readString(buffer, strings)
+                );
+                var title = readString(buffer, strings);
+                var parameters = new ArrayList<Parameter>();
+
+                for (var parameterCount = buffer.getInt(); parameterCount > 0; parameterCount--) {
+                    parameters.add(new Parameter(
+                            readString(buffer, strings),
+                            readString(buffer, strings),
+                            readString(buffer, strings),
+                            readString(buffer, strings)
+                    ));
+                }
+
+                var compatibleLanguages = readStrings(buffer, strings);
+                var qualityProfiles = readStrings(buffer, strings);
+                var status = readString(buffer, strings);
+                Code code = null;
+
+                if (buffer.get() != 0) {
+                    // not Map.copyOf, whose iteration order - and thus the generated code - would differ from the one of the materialized rules
+                    var impacts = new LinkedHashMap<String, String>();
+
+                    for (var impactCount = buffer.getInt(); impactCount > 0; impactCount--) {
+                        impacts.put(readString(buffer, strings), readString(buffer, strings));
+                    }
+
+                    code = new Code(Collections.unmodifiableMap(impacts), readString(buffer, strings));
+                }
+
+                rules.add(new Rule(
+                        name,
+                        htmlDocumentation,
+                        type,
+                        defaultSeverity,
+                        tags,
+                        scope,
+                        remediation,
+                        title,
+                        List.copyOf(parameters),
+                        compatibleLanguages,
+                        qualityProfiles,
+                        status,
+                        code
+                ));
+            }
+
+            return rules;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Corrupted rule cache");
+        }
+    }
+
+    private static void writeString(DataOutputStream output, LinkedHashMap<String, Integer> strings, String value) throws IOException {
+        output.writeInt(value == null ? -1 : strings.computeIfAbsent(value, string -> strings.size()));
+    }
+
+    private static void writeStrings(DataOutputStream output, LinkedHashMap<String, Integer> strings, List<String> values) throws IOException {
+        output.writeInt(values.size());
+
+        for (var value : values) {
+            writeString(output, strings, value);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, String[] strings) {
+        var reference = buffer.getInt();
+
+        return reference == -1 ? null : strings[reference];
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer, String[] strings) {
+        var values = new String[buffer.getInt()];
+
+        for (var index = 0; index < values.length; index++) {
+            values[index] = readString(buffer, strings);
+        }
+
+        return List.of(values);
+    }
+
+    private static String readUtf8(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getInt()];
+
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
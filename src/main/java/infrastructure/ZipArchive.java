@@ -0,0 +1,43 @@
+package infrastructure;
+
+import application.Host;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the entries of a zip archive - or of a jar - on demand, locating them through its central directory.
+ */
+class ZipArchive implements Host.Archive {
+    private final ZipFile file;
+
+    ZipArchive(Path path) throws IOException {
+        this.file = new ZipFile(path.toFile(), StandardCharsets.UTF_8);
+    }
+
+    public String read(String entryName) throws application.IOException {
+        var entry = this.file.getEntry(entryName);
+
+        if (entry == null) {
+            return null;
+        }
+
+        try (var stream = this.file.getInputStream(entry)) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public void close() {
+        try {
+            this.file.close();
+        }
+        catch (IOException e) {
+            // the archive was only read, so nothing is lost
+        }
+    }
+}
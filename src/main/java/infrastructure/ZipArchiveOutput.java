@@ -0,0 +1,67 @@
+package infrastructure;
+
+import application.Host;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the entries of a zip archive into a sibling temporary file, that is only moved over the archive once committed.
+ */
+class ZipArchiveOutput implements Host.ArchiveOutput {
+    private final Path path;
+    private final Path temporaryPath;
+    private final ZipOutputStream stream;
+    private boolean committed = false;
+
+    ZipArchiveOutput(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        this.path = path;
+        this.temporaryPath = FileOutput.temporarySibling(path);
+        this.stream = new ZipOutputStream(Files.newOutputStream(this.temporaryPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), StandardCharsets.UTF_8);
+    }
+
+    public void add(String entryName, String content) throws application.IOException {
+        try {
+            this.stream.putNextEntry(new ZipEntry(entryName));
+            this.stream.write(content.getBytes(StandardCharsets.UTF_8));
+            this.stream.closeEntry();
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public void commit() throws application.IOException {
+        try {
+            this.stream.close();
+
+            FileOutput.move(this.temporaryPath, this.path);
+
+            this.committed = true;
+        }
+        catch (IOException e) {
+            throw new application.IOException();
+        }
+    }
+
+    public void close() {
+        if (this.committed) {
+            return;
+        }
+
+        try {
+            this.stream.close();
+            Files.deleteIfExists(this.temporaryPath);
+        }
+        catch (IOException e) {
+            // nothing more can be done about a temporary file that can't be removed
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package application;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A bare rule repository, with the layout of the remote one, served by git from a local directory through the file protocol.
+ */
+class LocalRuleRepository {
+    static final String BRANCH_NAME = "main";
+
+    private final Path workingDirectory;
+    private final Path bareDirectory;
+
+    /**
+     * Create the repository in the passed directory, with a first commit holding the passed files.
+     *
+     * @param files The content of the files, indexed by their path relative to the root of the repository
+     */
+    LocalRuleRepository(Path directory, Map<String, String> files) throws Throwable {
+        this.workingDirectory = directory.resolve("work");
+        this.bareDirectory = directory.resolve("remote.git");
+
+        Files.createDirectories(this.workingDirectory);
+        git(this.workingDirectory, "init", "--quiet", "--initial-branch", BRANCH_NAME);
+        this.commit(files);
+        git(directory, "clone", "--quiet", "--bare", this.workingDirectory.toString(), this.bareDirectory.toString());
+        // what a sparse checkout requires from the remote: filtering out blobs, and fetching the filtered ones on demand
+        git(this.bareDirectory, "config", "uploadpack.allowFilter", "true");
+        git(this.bareDirectory, "config", "uploadpack.allowAnySHA1InWant", "true");
+    }
+
+    String url() {
+        return this.bareDirectory.toUri().toString();
+    }
+
+    /**
+     * Commit the passed files - a null content deleting a file - and push the commit to the bare repository.
+     *
+     * @return The SHA of the commit
+     */
+    String commit(Map<String, String> files) throws Throwable {
+        for (var file : files.entrySet()) {
+            var path = this.workingDirectory.resolve(file.getKey());
+
+            if (file.getValue() == null) {
+                Files.delete(path);
+            } else {
+                Files.createDirectories(path.getParent());
+                Files.writeString(path, file.getValue());
+            }
+        }
+
+        git(this.workingDirectory, "add", "--all");
+        git(this.workingDirectory, "-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "--quiet", "--message", "commit");
+
+        if (Files.isDirectory(this.bareDirectory)) {
+            git(this.workingDirectory, "push", "--quiet", this.bareDirectory.toString(), BRANCH_NAME);
+        }
+
+        return git(this.workingDirectory, "rev-parse", "HEAD").trim();
+    }
+
+    private static String git(Path workingDirectory, String... arguments) throws Throwable {
+        var command = new ArrayList<String>();
+
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+
+        var process = new ProcessBuilder(command).directory(workingDirectory.toFile()).redirectErrorStream(true).start();
+        var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals(0, process.waitFor(), output);
+
+        return output;
+    }
+}
@@ -0,0 +1,50 @@
+package application;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelTest {
+    @Test
+    void runsNestedMapsOnTheThreadsOfTheExecution() {
+        var items = IntStream.range(0, 8).boxed().toList();
+        var runningCount = new AtomicInteger();
+        var maximumRunningCount = new AtomicInteger();
+
+        try (var parallel = new Parallel(3)) {
+            var results = parallel.map(items, item -> parallel.map(items, nestedItem -> {
+                maximumRunningCount.accumulateAndGet(runningCount.incrementAndGet(), Math::max);
+
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    runningCount.decrementAndGet();
+                }
+
+                return item * 10 + nestedItem;
+            }));
+
+            for (var item : items) {
+                assertEquals(items.stream().map(nestedItem -> item * 10 + nestedItem).toList(), results.get(item));
+            }
+        }
+
+        assertTrue(maximumRunningCount.get() <= 3, String.valueOf(maximumRunningCount.get()));
+    }
+
+    @Test
+    void mapsSequentiallyOnTheCallingThread() {
+        var callingThread = Thread.currentThread();
+
+        try (var parallel = new Parallel(1)) {
+            assertEquals(List.of(true, true), parallel.map(List.of(1, 2), item -> Thread.currentThread() == callingThread));
+        }
+    }
+}
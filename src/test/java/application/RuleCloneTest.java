@@ -0,0 +1,172 @@
+package application;
+
+import com.google.gson.JsonObject;
+import domain.Metrics;
+import infrastructure.JVMHost;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks out a local bare rule repository, and reads its rules the way they are read from the remote one.
+ */
+public class RuleCloneTest {
+    static final Map<String, String> FILES = Map.of(
+            "rules/S100/metadata.json", "{\"title\": \"Generic title\", \"type\": \"CODE_SMELL\", \"status\": \"ready\", \"defaultQualityProfiles\": [\"Sonar way\"]}",
+            "rules/S100/rule.adoc", "Generic description\n\ninclude::../../shared_content/naming.adoc[]\n",
+            "rules/S100/java/metadata.json", "{\"title\": \"Java title\"}",
+            "rules/S100/java/rule.adoc", "include::../rule.adoc[]\n\nJava description\n",
+            "rules/S200/metadata.json", "{\"title\": \"Kotlin only\", \"type\": \"BUG\", \"status\": \"ready\"}",
+            "rules/S200/kotlin/metadata.json", "{}",
+            "rules/S200/kotlin/rule.adoc", "Kotlin description\n",
+            "rules/S300/java/metadata.json", "{\"title\": \"Without generic metadata\", \"type\": \"BUG\", \"status\": \"deprecated\", \"defaultQualityProfiles\": []}",
+            "rules/S300/java/rule.adoc", "Deprecated\n",
+            "shared_content/naming.adoc", "Shared naming conventions\n"
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsTheSparseCheckout() throws Throwable {
+        var repository = new LocalRuleRepository(this.directory, FILES);
+        var clone = this.clone(repository);
+        List<RuleFile> ruleFiles;
+
+        try (var stream = clone.stream("java", new Metrics(), new SystemStreamLog())) {
+            ruleFiles = stream.toList();
+        }
+
+        assertEquals(List.of("S100", "S300"), ruleFiles.stream().map(RuleFile::key).toList());
+
+        var ruleFile = ruleFiles.get(0);
+
+        // the metadata of the language overrides the generic one, property by property
+        assertEquals("Java title", ruleFile.manifest().get("title").getAsString());
+        assertEquals("CODE_SMELL", ruleFile.manifest().get("type").getAsString());
+        assertEquals(List.of("Sonar way"), ruleFile.qualityProfiles());
+        assertTrue(ruleFile.description().contains("Generic description"));
+        assertTrue(ruleFile.description().contains("Shared naming conventions"));
+        assertTrue(ruleFile.description().contains("Java description"));
+        assertEquals(List.of(), ruleFiles.get(1).qualityProfiles());
+
+        // the other languages are not checked out
+        assertTrue(Files.isRegularFile(this.directory.resolve("clone/rules/S100/java/rule.adoc")));
+        assertFalse(Files.exists(this.directory.resolve("clone/rules/S200/kotlin")));
+    }
+
+    @Test
+    void readsTheSparseCheckoutAsRuleApiReadsTheFullClone() throws Throwable {
+        var repository = new LocalRuleRepository(this.directory, FILES);
+        var host = new JVMHost();
+        var revision = host.resolveRevision(repository.url(), LocalRuleRepository.BRANCH_NAME);
+        var sparseClone = new RuleClone(repository.url(), LocalRuleRepository.BRANCH_NAME, revision, host, true, this.directory.resolve("sparse-clone").toString());
+        var fullClone = new RuleClone(repository.url(), LocalRuleRepository.BRANCH_NAME, revision, host, false, this.directory.resolve("full-clone").toString());
+
+        for (var ruleSubdirectory : List.of("java", "kotlin")) {
+            var expectedRules = read(fullClone, ruleSubdirectory);
+
+            assertFalse(expectedRules.isEmpty());
+            assertEquals(expectedRules, read(sparseClone, ruleSubdirectory));
+        }
+    }
+
+    @Test
+    void checksOutRequestedSubdirectoriesAlongTheOtherOnes() throws Throwable {
+        var repository = new LocalRuleRepository(this.directory, FILES);
+        var clone = this.clone(repository);
+
+        assertEquals(List.of("S100", "S300"), clone.getRuleKeys("java", new Metrics(), new SystemStreamLog()));
+        assertEquals(List.of("S200"), clone.getRuleKeys("kotlin", new Metrics(), new SystemStreamLog()));
+        assertTrue(Files.isRegularFile(this.directory.resolve("clone/rules/S100/java/rule.adoc")));
+        assertEquals(List.of(), clone.getRuleKeys("python", new Metrics(), new SystemStreamLog()));
+    }
+
+    @Test
+    void readsItsOwnCommitOfACloneMovedByAnotherExecution() throws Throwable {
+        var repository = new LocalRuleRepository(this.directory, FILES);
+        var host = new JVMHost();
+        var oldRevision = host.resolveRevision(repository.url(), LocalRuleRepository.BRANCH_NAME);
+        var newRevision = repository.commit(Map.of("rules/S100/java/rule.adoc", "Java description, changed\n"));
+
+        for (var sparseCheckout : List.of(true, false)) {
+            var clonePath = this.directory.resolve(sparseCheckout ? "sparse-clone" : "full-clone");
+            // every clone stands for the one of another process, sharing the same directory
+            var oldClone = new RuleClone(repository.url(), LocalRuleRepository.BRANCH_NAME, oldRevision, host, sparseCheckout, clonePath.toString());
+            var newClone = new RuleClone(repository.url(), LocalRuleRepository.BRANCH_NAME, newRevision, host, sparseCheckout, clonePath.toString());
+            // a full clone holds every rule subdirectory
+            var checkedOutRuleSubdirectories = sparseCheckout ? "\njava\n" : "\n";
+
+            assertFalse(read(oldClone, "java").get(0).description().contains("changed"));
+            assertEquals(oldRevision + checkedOutRuleSubdirectories, Files.readString(Path.of(clonePath + ".checkout")));
+            assertTrue(read(newClone, "java").get(0).description().contains("changed"));
+            assertEquals(newRevision + checkedOutRuleSubdirectories, Files.readString(Path.of(clonePath + ".checkout")));
+            assertFalse(read(oldClone, "java").get(0).description().contains("changed"));
+            assertEquals(oldRevision + checkedOutRuleSubdirectories, Files.readString(Path.of(clonePath + ".checkout")));
+        }
+    }
+
+    @Test
+    void listsTheRulesChangedBetweenTwoCommits() throws Throwable {
+        var repository = new LocalRuleRepository(this.directory, FILES);
+        var clone = this.clone(repository);
+        var host = new JVMHost();
+        var fromRevision = host.resolveRevision(repository.url(), LocalRuleRepository.BRANCH_NAME);
+
+        clone.getRuleKeys("java", new Metrics(), new SystemStreamLog());
+
+        var changes = new HashMap<String, String>();
+
+        changes.put("rules/S100/java/rule.adoc", "Java description, changed\n");
+        changes.put("rules/S300/java/metadata.json", null);
+        changes.put("rules/S300/java/rule.adoc", null);
+        changes.put("rules/S400/java/metadata.json", "{}");
+
+        var toRevision = repository.commit(changes);
+
+        // the commits are missing from the shallow checkout, that fetches them
+        assertEquals(Set.of("S100", "S300", "S400"), clone.getChangedRuleKeys("java", fromRevision, toRevision, new Metrics(), new SystemStreamLog()));
+        assertEquals(Set.of(), clone.getChangedRuleKeys("java", toRevision, toRevision, new Metrics(), new SystemStreamLog()));
+
+        var sharedRevision = repository.commit(Map.of("shared_content/naming.adoc", "Changed naming conventions\n"));
+
+        // any rule may include shared content
+        assertNull(clone.getChangedRuleKeys("java", toRevision, sharedRevision, new Metrics(), new SystemStreamLog()));
+        assertNull(clone.getChangedRuleKeys("java", fromRevision, "0123456789abcdef0123456789abcdef01234567", new Metrics(), new SystemStreamLog()));
+    }
+
+    /**
+     * @return Every value of the rules of the passed subdirectory, sorted by key
+     */
+    private static List<ReadRule> read(RuleClone clone, String ruleSubdirectory) {
+        try (var stream = clone.stream(ruleSubdirectory, new Metrics(), new SystemStreamLog())) {
+            return stream
+                    .map(ruleFile -> new ReadRule(ruleFile.key(), ruleFile.manifest(), ruleFile.qualityProfiles(), ruleFile.description()))
+                    .sorted(Comparator.comparing(ReadRule::key))
+                    .toList();
+        }
+    }
+
+    private RuleClone clone(LocalRuleRepository repository) {
+        var host = new JVMHost();
+        var revision = host.resolveRevision(repository.url(), LocalRuleRepository.BRANCH_NAME);
+
+        return new RuleClone(repository.url(), LocalRuleRepository.BRANCH_NAME, revision, host, true, this.directory.resolve("clone").toString());
+    }
+
+    private record ReadRule(String key, JsonObject manifest, List<String> qualityProfiles, String description) {
+    }
+}
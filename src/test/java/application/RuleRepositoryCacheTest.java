@@ -0,0 +1,38 @@
+package application;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RuleRepositoryCacheTest {
+    private static final String URL = "file:///rule-repository-cache-test.git";
+
+    @Test
+    void sharesClonesOfTheSameConfiguration() {
+        var clone = get("1111111111111111111111111111111111111111", false);
+
+        assertSame(clone, get("1111111111111111111111111111111111111111", false));
+        // a sparse checkout is another clone
+        assertNotSame(clone, get("1111111111111111111111111111111111111111", true));
+        assertSame(clone, get("1111111111111111111111111111111111111111", false));
+    }
+
+    @Test
+    void evictsClonesOfAnotherCommit() {
+        var clone = get("2222222222222222222222222222222222222222", false);
+
+        get("3333333333333333333333333333333333333333", false);
+
+        assertNotSame(clone, get("2222222222222222222222222222222222222222", false));
+    }
+
+    @Test
+    void neverSharesClonesOfAnUnknownCommit() {
+        assertNotSame(get(null, false), get(null, false));
+    }
+
+    private static RuleClone get(String revision, boolean sparseCheckout) {
+        return RuleRepositoryCache.get(URL, "master", revision, sparseCheckout, () -> new RuleClone(URL, "master", revision, null, sparseCheckout));
+    }
+}
@@ -0,0 +1,60 @@
+package application;
+
+import domain.Metrics;
+import domain.RuleFilter;
+import infrastructure.JVMHost;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RuleRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void streamReadsRulesAsItIsConsumed() throws Throwable {
+        var repository = new LocalRuleRepository(this.directory, RuleCloneTest.FILES);
+        var readFilePaths = new ArrayList<String>();
+        var host = recording(new JVMHost(), readFilePaths);
+        var revision = host.resolveRevision(repository.url(), LocalRuleRepository.BRANCH_NAME);
+        var clone = new RuleClone(repository.url(), LocalRuleRepository.BRANCH_NAME, revision, host, true, this.directory.resolve("clone").toString());
+        var ruleRepository = new RuleRepository(clone, new Parallel(1), null, null, new Metrics(), new SystemStreamLog());
+
+        try (var ruleManifests = ruleRepository.streamRuleManifestsByRuleSubdirectory("java", RuleFilter.ALL)) {
+            var iterator = ruleManifests.iterator();
+
+            // the rules are listed, but none is read before the stream is consumed
+            assertEquals(List.of(), readFilePaths);
+
+            assertEquals("S100", iterator.next().key());
+            assertEquals(List.of("rules/S100/metadata.json", "rules/S100/java/metadata.json", "rules/S100/java/rule.adoc"), readFilePaths);
+        }
+    }
+
+    /**
+     * @return The passed host, recording the paths - relative to the clone - of the rule files it reads
+     */
+    private Host recording(Host host, List<String> readFilePaths) {
+        var clonePath = this.directory.resolve("clone");
+
+        return (Host) Proxy.newProxyInstance(Host.class.getClassLoader(), new Class<?>[] {Host.class}, (proxy, method, arguments) -> {
+            if ((method.getName().equals("read") || method.getName().equals("convertAsciiDoc")) && Path.of((String) arguments[0]).startsWith(clonePath.resolve("rules"))) {
+                readFilePaths.add(clonePath.relativize(Path.of((String) arguments[0])).toString());
+            }
+
+            try {
+                return method.invoke(host, arguments);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+}
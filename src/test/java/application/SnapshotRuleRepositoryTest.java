@@ -0,0 +1,73 @@
+package application;
+
+import domain.Metrics;
+import domain.Rule;
+import domain.RuleFilter;
+import infrastructure.JVMHost;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Exports a snapshot of a local rule repository, and checks that it reads the same rules as the repository.
+ */
+public class SnapshotRuleRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsTheExportedRules() throws Throwable {
+        var host = new JVMHost();
+        var repository = new LocalRuleRepository(this.directory, RuleCloneTest.FILES);
+        var revision = host.resolveRevision(repository.url(), LocalRuleRepository.BRANCH_NAME);
+        var clone = new RuleClone(repository.url(), LocalRuleRepository.BRANCH_NAME, revision, host, true, this.directory.resolve("clone").toString());
+        var ruleRepository = new RuleRepository(clone, new Parallel(1), null, null, new Metrics(), new SystemStreamLog());
+        var snapshotFile = this.directory.resolve("snapshot.zip").toString();
+
+        assertEquals(3, SnapshotRuleRepository.export(host, snapshotFile, ruleRepository, repository.url(), LocalRuleRepository.BRANCH_NAME, revision, List.of("java", "kotlin")));
+
+        try (var snapshot = SnapshotRuleRepository.open(host, snapshotFile)) {
+            assertEquals(revision, snapshot.getRevision());
+            assertEquals(List.of("S100", "S300"), snapshot.getRuleKeysByRuleSubdirectory("java"));
+            assertEquals(List.of("S200"), snapshot.getRuleKeysByRuleSubdirectory("kotlin"));
+
+            assertEquals(ruleRepository.getRulesByLanguage("java", RuleFilter.ALL), snapshot.getRulesByLanguage("java", RuleFilter.ALL));
+            assertEquals(ruleRepository.getRulesByLanguage("kotlin", RuleFilter.ALL), snapshot.getRulesByLanguage("kotlin", RuleFilter.ALL));
+
+            var filter = new RuleFilter(null, Set.of("ready"), null);
+
+            assertEquals(
+                    List.of("S100"),
+                    snapshot.getRulesByLanguage("java", filter).stream().map(Rule::name).toList()
+            );
+
+            try (var expectedRuleManifests = ruleRepository.streamRuleManifestsByRuleSubdirectory("java", RuleFilter.ALL);
+                 var ruleManifests = snapshot.streamRuleManifestsByRuleSubdirectory("java", RuleFilter.ALL)) {
+                assertEquals(expectedRuleManifests.toList(), ruleManifests.toList());
+            }
+
+            // only the exported subdirectories are held by the snapshot
+            assertThrows(IllegalStateException.class, () -> snapshot.getRuleKeysByRuleSubdirectory("python"));
+        }
+    }
+
+    @Test
+    void rejectsAnArchiveThatIsNotASnapshot() throws Throwable {
+        var host = new JVMHost();
+        var archiveFile = this.directory.resolve("archive.zip").toString();
+
+        try (var output = host.createArchive(archiveFile)) {
+            output.add("entry.txt", "content");
+            output.commit();
+        }
+
+        assertThrows(IOException.class, () -> SnapshotRuleRepository.open(host, archiveFile));
+    }
+}
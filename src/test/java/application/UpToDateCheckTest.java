@@ -0,0 +1,109 @@
+package application;
+
+import infrastructure.JVMHost;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UpToDateCheckTest {
+    private static final String REVISION = "0123456789abcdef0123456789abcdef01234567";
+    private static final long HOUR = 3600 * 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recentRevisionIsTrustedWithoutResolvingIt() throws Throwable {
+        var output = this.output();
+
+        this.check("configuration").record(REVISION, 1000, List.of(output));
+
+        var check = this.check("configuration");
+
+        assertEquals(REVISION, check.getRecentRevision(1000 + HOUR - 1, HOUR));
+        assertTrue(check.isUpToDate(REVISION));
+        assertEquals(List.of(output), check.getRecordedOutputs());
+    }
+
+    @Test
+    void oldRevisionIsResolvedAgain() throws Throwable {
+        this.check("configuration").record(REVISION, 1000, List.of(this.output()));
+
+        var check = this.check("configuration");
+
+        assertNull(check.getRecentRevision(1000 + HOUR, HOUR));
+        assertNull(check.getRecentRevision(999, HOUR));
+        // the remote moved
+        assertFalse(check.isUpToDate("fedcba9876543210fedcba9876543210fedcba98"));
+        assertEquals(REVISION, check.getIncrementalBase("fedcba9876543210fedcba9876543210fedcba98"));
+        // the remote didn't move
+        assertTrue(check.isUpToDate(REVISION));
+    }
+
+    @Test
+    void changedConfigurationInvalidates() throws Throwable {
+        this.check("configuration").record(REVISION, 1000, List.of(this.output()));
+
+        var check = this.check("other configuration");
+
+        assertNull(check.getRecentRevision(1000, HOUR));
+        assertNull(check.getRecordedRevision());
+        assertFalse(check.isUpToDate(REVISION));
+    }
+
+    @Test
+    void missingOutputInvalidates() throws Throwable {
+        var output = this.output();
+
+        this.check("configuration").record(REVISION, 1000, List.of(output));
+        Files.delete(Path.of(output));
+
+        var check = this.check("configuration");
+
+        assertNull(check.getRecentRevision(1000, HOUR));
+        assertFalse(check.isUpToDate(REVISION));
+        // the missing output is still recorded, to be pruned
+        assertEquals(List.of(output), check.getRecordedOutputs());
+    }
+
+    @Test
+    void unresolvedRevisionIsNeverTrusted() throws Throwable {
+        var output = this.output();
+
+        // offline, with nothing recorded
+        this.check("configuration").record(null, 0, List.of(output));
+
+        var check = this.check("configuration");
+
+        assertNull(check.getRecordedRevision());
+        assertNull(check.getRecentRevision(1000, HOUR));
+        assertFalse(check.isUpToDate(null));
+
+        // offline, assuming the recorded commit, that is then never trusted as recent
+        check.record(REVISION, 0, List.of(output));
+
+        assertEquals(REVISION, check.getRecordedRevision());
+        assertNull(check.getRecentRevision(1000, HOUR));
+    }
+
+    private UpToDateCheck check(String configuration) {
+        return new UpToDateCheck(new JVMHost(), this.directory.toString(), "goal", this.directory.resolve("target").toString(), configuration);
+    }
+
+    private String output() throws Throwable {
+        var output = this.directory.resolve("target").resolve("output");
+
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, "output");
+
+        return output.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MetricsTest {
+    /**
+     * A clock whose time only moves when told to, and that reports every tick as CPU time of every thread.
+     */
+    private static class ManualClock implements Clock {
+        private long time;
+
+        public long wallTime() {
+            return this.time;
+        }
+
+        public long cpuTime() {
+            return this.time;
+        }
+    }
+
+    @Test
+    void countsTheCommonWallTimeOfConcurrentTimersOnce() {
+        var clock = new ManualClock();
+        var metrics = new Metrics(clock);
+
+        var firstTimer = metrics.time("render");
+        clock.time = 10;
+        var secondTimer = metrics.time("render");
+        clock.time = 30;
+        firstTimer.close();
+        clock.time = 40;
+        secondTimer.close();
+
+        var phase = metrics.getPhases().get(0);
+
+        assertEquals(40, phase.wallTime());
+        assertEquals(30 + 30, phase.cpuTime());
+    }
+
+    @Test
+    void addsTheWallTimesOfSuccessiveTimers() {
+        var clock = new ManualClock();
+        var metrics = new Metrics(clock);
+
+        try (var timer = metrics.time("write")) {
+            clock.time = 10;
+        }
+
+        clock.time = 100;
+
+        try (var timer = metrics.time("write")) {
+            clock.time = 105;
+        }
+
+        assertEquals(15, metrics.getPhases().get(0).wallTime());
+    }
+}
@@ -0,0 +1,214 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.SonarEdition;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.impl.server.RulesDefinitionContext;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.server.profile.BuiltInQualityProfilesDefinition;
+import org.sonar.api.server.rule.RulesDefinition;
+import org.sonar.api.utils.Version;
+
+import javax.tools.ToolProvider;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads the registrar class files, and checks that they define the same repository and profiles as the compiled sources of the registrars,
+ * into the contexts of the plugin API.
+ */
+public class RegistrarClassFilesTest {
+    private static final List<String> PROFILE_NAMES = List.of("Sonar way", "Extra", "Empty");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void inlinedDocumentation() throws Throwable {
+        this.assertSameDefinitions(false);
+    }
+
+    @Test
+    void externalizedDocumentation() throws Throwable {
+        this.assertSameDefinitions(true);
+    }
+
+    private void assertSameDefinitions(boolean externalizeDocumentation) throws Throwable {
+        var sources = this.directory.resolve("sources");
+        var compiledSources = this.directory.resolve("compiled-sources");
+        var classFiles = this.directory.resolve("class-files");
+        var debugSources = this.directory.resolve("debug-sources");
+        var compiledDebugSources = this.directory.resolve("compiled-debug-sources");
+
+        this.generate(RegistrarLayout.CLASSES, sources.toString(), externalizeDocumentation ? compiledSources.toString() : null, null);
+        compile(sources, compiledSources);
+
+        var outputs = this.generate(RegistrarLayout.TABLE, debugSources.toString(), externalizeDocumentation ? classFiles.toString() : null, classFiles.toString());
+
+        assertTrue(outputs.contains(classFiles.resolve("org/foo/javaRepositoryRegistrar.class").toString()));
+        assertTrue(outputs.contains(classFiles.resolve("org/foo/javaProfileRegistrar.class").toString()));
+        compile(debugSources, compiledDebugSources);
+
+        var expectedDefinitions = define(compiledSources);
+
+        assertEquals(7, expectedDefinitions.size());
+        assertEquals(expectedDefinitions, define(classFiles));
+        // the debug sources are the ones of the table layout, the class files holding the documentation resources
+        assertEquals(expectedDefinitions, define(compiledDebugSources, classFiles));
+    }
+
+    @Test
+    void classFilesOfAnotherLayout() {
+        assertThrows(IllegalArgumentException.class, () -> this.generate(RegistrarLayout.CLASSES, null, null, this.directory.toString()));
+    }
+
+    private List<String> generate(RegistrarLayout layout, String targetDirectory, String documentationDirectory, String classDirectory) throws Exception {
+        var generator = new RegistrarsGenerator(message -> {}, new FixedRuleRepository(rules()), new application.FileSystem(new infrastructure.JVMHost()));
+
+        return generator.execute(
+                RegistrarsOptions.of("org.foo", "java", "java", "java", targetDirectory)
+                        .withProfileNames(PROFILE_NAMES)
+                        .withDocumentationDirectory(documentationDirectory)
+                        .withLayout(layout)
+                        .withClassDirectory(classDirectory)
+        );
+    }
+
+    private static void compile(Path sources, Path classDirectory) throws Throwable {
+        var arguments = new ArrayList<>(List.of("-encoding", "UTF-8", "-d", classDirectory.toString(), "-classpath", System.getProperty("java.class.path")));
+
+        try (var files = Files.list(sources)) {
+            files.map(Path::toString).forEach(arguments::add);
+        }
+
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, arguments.toArray(String[]::new)));
+    }
+
+    /**
+     * @return The description of the repository and the profiles the registrars loaded from the passed class directories define, line by line
+     */
+    private static List<String> define(Path... classDirectories) throws Throwable {
+        var definitions = new ArrayList<String>();
+        var urls = new URL[classDirectories.length];
+
+        for (var index = 0; index < classDirectories.length; index++) {
+            urls[index] = classDirectories[index].toUri().toURL();
+        }
+
+        try (var classLoader = new URLClassLoader(urls, RegistrarClassFilesTest.class.getClassLoader())) {
+            var repositoryRegistrar = (RulesDefinition) classLoader.loadClass("org.foo.javaRepositoryRegistrar")
+                    .getConstructor(SonarRuntime.class)
+                    .newInstance(SonarRuntimeImpl.forSonarQube(Version.create(10, 0), SonarQubeSide.SERVER, SonarEdition.COMMUNITY));
+            var rulesContext = new RulesDefinitionContext();
+
+            repositoryRegistrar.define(rulesContext);
+
+            for (var repository : rulesContext.repositories()) {
+                definitions.add(String.format("repository %s|%s|%s", repository.key(), repository.language(), repository.name()));
+                repository.rules().stream()
+                        .sorted(Comparator.comparing(RulesDefinition.Rule::key))
+                        .forEach(rule -> definitions.add(String.format("rule %s|%s%n%s", rule.key(), rule.name(), rule.htmlDescription())));
+            }
+
+            var profileRegistrar = (BuiltInQualityProfilesDefinition) classLoader.loadClass("org.foo.javaProfileRegistrar").getConstructor().newInstance();
+            var profilesContext = new BuiltInQualityProfilesDefinition.Context();
+
+            profileRegistrar.define(profilesContext);
+            profilesContext.profilesByLanguageAndName().values().stream()
+                    .flatMap(profiles -> profiles.values().stream())
+                    .sorted(Comparator.comparing(BuiltInQualityProfilesDefinition.BuiltInQualityProfile::language).thenComparing(BuiltInQualityProfilesDefinition.BuiltInQualityProfile::name))
+                    .forEach(profile -> definitions.add(String.format(
+                            "profile %s|%s|%s",
+                            profile.name(),
+                            profile.language(),
+                            profile.rules().stream().map(rule -> rule.repoKey() + ":" + rule.ruleKey()).sorted().toList()
+                    )));
+        }
+
+        return definitions;
+    }
+
+    private static List<Rule> rules() {
+        // longer than a chunk of the packed table, but short enough to be inlined by the classes layout
+        var longDocumentation = "<p>" + "A \"quoted\" \\ back\nslash, ".repeat(1500) + "Grüße 😀</p>";
+
+        return List.of(
+                new Rule(
+                        "S100",
+                        "<p>Method names should comply with a naming convention</p>\n<pre>\"\\t\" é</pre>",
+                        "CODE_SMELL",
+                        "Minor",
+                        List.of("convention", "é"),
+                        "Main",
+                        new Remediation("Constant/Issue", "5min", null, null, null),
+                        "Method names should comply with a \"naming\" convention",
+                        List.of(
+                                new Parameter("format", "Regular expression used to check the names against", "STRING", "^[a-z][a-zA-Z0-9]*$"),
+                                new Parameter("max", "Maximum \"length\"", "INTEGER", null)
+                        ),
+                        List.of("java"),
+                        List.of("Sonar way", "Extra"),
+                        "ready",
+                        new Code(new LinkedHashMap<>(Map.of("MAINTAINABILITY", "LOW", "RELIABILITY", "MEDIUM")), "IDENTIFIABLE")
+                ),
+                new Rule(
+                        "S200",
+                        longDocumentation,
+                        "BUG",
+                        "Major",
+                        List.of(),
+                        null,
+                        new Remediation("Linear", null, "2min", "10min", "per line"),
+                        "A long documentation",
+                        List.of(),
+                        List.of("java"),
+                        List.of("Extra"),
+                        "deprecated",
+                        null
+                ),
+                new Rule(
+                        "S300",
+                        "",
+                        "VULNERABILITY",
+                        "Critical",
+                        List.of("cwe"),
+                        "Tests",
+                        null,
+                        "Nothing in any profile",
+                        List.of(new Parameter("empty", "", "BOOLEAN", "")),
+                        List.of("java"),
+                        List.of(),
+                        "ready",
+                        new Code(Map.of(), "CONVENTIONAL")
+                )
+        );
+    }
+
+    private record FixedRuleRepository(List<Rule> rules) implements RuleRepository {
+        public List<Rule> getRulesByLanguage(String languageKey, RuleFilter filter) {
+            return this.rules;
+        }
+
+        public Stream<RuleData> streamRuleManifestsByRuleSubdirectory(String ruleSubdirectory, RuleFilter filter) {
+            return Stream.empty();
+        }
+
+        public List<String> getRuleKeysByRuleSubdirectory(String ruleSubdirectory) {
+            return List.of();
+        }
+    }
+}
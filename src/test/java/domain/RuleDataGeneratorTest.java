@@ -0,0 +1,125 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RuleDataGeneratorTest {
+    private static final List<RuleData> RULES = List.of(
+            new RuleData("S100", "{\"title\":\"Naming\"}", "<p>Method names</p>"),
+            new RuleData("S200", "{\"title\":\"Unchanged\"}", "<p>Unchanged</p>"),
+            new RuleData("S300", "{\"title\":\"Removed\"}", "<p>Removed</p>")
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void regeneratesChangedRulesOnly() throws Throwable {
+        var previousOutputs = this.generate(RULES, null, null, new Metrics());
+
+        var unchangedFile = this.directory.resolve("S200.html");
+        var unchangedTime = Files.getLastModifiedTime(unchangedFile);
+        var rules = List.of(
+                new RuleData("S100", "{\"title\":\"Renamed\"}", "<p>Method names, changed</p>"),
+                RULES.get(1),
+                new RuleData("S400", "{\"title\":\"Added\"}", "<p>Added</p>")
+        );
+        var metrics = new Metrics();
+
+        var outputs = this.generate(rules, Set.of("S100", "S300", "S400"), previousOutputs, metrics);
+
+        assertEquals(this.files("S100", "S200", "S400"), outputs);
+        assertEquals("<p>Method names, changed</p>", Files.readString(this.directory.resolve("S100.html")));
+        assertEquals("{\"title\":\"Added\"}", Files.readString(this.directory.resolve("S400.json")));
+        // the files of the removed rule are pruned, and the ones of the unchanged rule are not even read
+        assertFalse(Files.exists(this.directory.resolve("S300.html")));
+        assertFalse(Files.exists(this.directory.resolve("S300.json")));
+        assertEquals(unchangedTime, Files.getLastModifiedTime(unchangedFile));
+        assertEquals(Map.of("rules", 2L), counters(metrics, "load"));
+        assertEquals(4, (long) counters(metrics, "write").get(Metrics.WRITTEN_FILES));
+        assertEquals(Map.of(Metrics.DELETED_FILES, 2L), counters(metrics, "prune"));
+    }
+
+    @Test
+    void regeneratesEveryRuleWhenChangesAreUnknown() throws Throwable {
+        var previousOutputs = this.generate(RULES, null, null, new Metrics());
+        var metrics = new Metrics();
+
+        assertEquals(previousOutputs, this.generate(RULES, null, previousOutputs, metrics));
+        assertEquals(Map.of("rules", 3L), counters(metrics, "load"));
+        assertEquals(6, (long) counters(metrics, "write").get(Metrics.SKIPPED_FILES));
+    }
+
+    @Test
+    void prunesFilesOfAnotherFormat() throws Throwable {
+        var foreignFile = this.directory.resolve("README.txt");
+
+        Files.writeString(foreignFile, "not generated");
+
+        var previousOutputs = this.generate(RULES, null, null, new Metrics());
+        var metrics = new Metrics();
+        var outputs = new RuleDataGenerator(message -> {}, new FixedRuleRepository(RULES), new application.FileSystem(new infrastructure.JVMHost()), metrics)
+                .execute("java", this.directory.toString(), RuleDataFormat.BUNDLE, null, previousOutputs);
+
+        assertEquals(List.of(this.directory.resolve("rules.bundle").toString()), outputs);
+        assertEquals(Map.of(Metrics.DELETED_FILES, 6L), counters(metrics, "prune"));
+
+        // only the files of the previous generation are deleted
+        try (var files = Files.list(this.directory)) {
+            assertEquals(Set.of("rules.bundle", "README.txt"), files.map(file -> file.getFileName().toString()).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void prunesNothingWithoutPreviousOutputs() throws Throwable {
+        this.generate(RULES, null, null, new Metrics());
+
+        var metrics = new Metrics();
+
+        assertEquals(this.files("S100", "S200"), this.generate(RULES.subList(0, 2), null, null, metrics));
+        assertTrue(Files.exists(this.directory.resolve("S300.html")));
+        assertTrue(metrics.getPhases().stream().noneMatch(phase -> phase.name().equals("prune")));
+    }
+
+    private List<String> generate(List<RuleData> rules, Set<String> changedRuleKeys, List<String> previousOutputs, Metrics metrics) throws Throwable {
+        var generator = new RuleDataGenerator(message -> {}, new FixedRuleRepository(rules), new application.FileSystem(new infrastructure.JVMHost()), metrics);
+
+        return generator.execute("java", this.directory.toString(), RuleDataFormat.FILES, changedRuleKeys, previousOutputs);
+    }
+
+    private List<String> files(String... ruleKeys) {
+        return Stream.of(ruleKeys)
+                .flatMap(ruleKey -> Stream.of(this.directory.resolve(ruleKey + ".html").toString(), this.directory.resolve(ruleKey + ".json").toString()))
+                .toList();
+    }
+
+    private static Map<String, Long> counters(Metrics metrics, String phase) {
+        return metrics.getPhases().stream().filter(recordedPhase -> recordedPhase.name().equals(phase)).findFirst().orElseThrow().counters();
+    }
+
+    private record FixedRuleRepository(List<RuleData> rules) implements RuleRepository {
+        public List<Rule> getRulesByLanguage(String languageKey, RuleFilter filter) {
+            return List.of();
+        }
+
+        public Stream<RuleData> streamRuleManifestsByRuleSubdirectory(String ruleSubdirectory, RuleFilter filter) {
+            return this.rules.stream().filter(rule -> filter.ruleKeys() == null || filter.ruleKeys().contains(rule.key()));
+        }
+
+        public List<String> getRuleKeysByRuleSubdirectory(String ruleSubdirectory) {
+            return this.rules.stream().map(RuleData::key).toList();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that files are published as a whole: written into a temporary sibling, then moved over the file, and only if their content changed.
+ */
+public class JVMHostTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesChangedFilesOnly() throws Throwable {
+        var host = new JVMHost();
+        var unchangedFile = this.directory.resolve("unchanged.html");
+        var changedFile = this.directory.resolve("changed.html");
+        var newFile = this.directory.resolve("nested/new.html");
+
+        Files.writeString(unchangedFile, "unchanged");
+        Files.writeString(changedFile, "before");
+
+        var unchangedTime = Files.getLastModifiedTime(unchangedFile);
+        var contentsByFilePath = new LinkedHashMap<String, String>();
+
+        contentsByFilePath.put(unchangedFile.toString(), "unchanged");
+        contentsByFilePath.put(changedFile.toString(), "after");
+        contentsByFilePath.put(newFile.toString(), "new");
+
+        assertEquals(List.of(changedFile.toString(), newFile.toString()), host.writeAllIfChanged(contentsByFilePath));
+        assertEquals("after", Files.readString(changedFile));
+        assertEquals("new", Files.readString(newFile));
+        assertEquals(unchangedTime, Files.getLastModifiedTime(unchangedFile));
+        // no temporary file is left behind
+        assertEquals(Set.of("unchanged.html", "changed.html", "nested"), this.fileNames(this.directory));
+        assertEquals(Set.of("new.html"), this.fileNames(newFile.getParent()));
+    }
+
+    @Test
+    void publishesOutputOnceCommitted() throws Throwable {
+        var host = new JVMHost();
+        var file = this.directory.resolve("rules.bundle");
+
+        Files.writeString(file, "before");
+
+        try (var output = host.open(file.toString())) {
+            output.append("after, ");
+            output.append("in pieces", 3, 9);
+
+            // a concurrent reader still sees the previous content as a whole
+            assertEquals("before", Files.readString(file));
+            assertTrue(output.commit());
+        }
+
+        assertEquals("after, pieces", Files.readString(file));
+        assertEquals(Set.of("rules.bundle"), this.fileNames(this.directory));
+    }
+
+    @Test
+    void discardsOutputThatIsNotCommitted() throws Throwable {
+        var host = new JVMHost();
+        var file = this.directory.resolve("rules.bundle");
+
+        Files.writeString(file, "before");
+
+        try (var output = host.open(file.toString())) {
+            output.append("partial");
+        }
+
+        assertEquals("before", Files.readString(file));
+        assertEquals(Set.of("rules.bundle"), this.fileNames(this.directory));
+
+        try (var output = host.open(file.toString())) {
+            output.append("before");
+
+            // the same content is not written again
+            assertFalse(output.commit());
+        }
+
+        assertEquals(Set.of("rules.bundle"), this.fileNames(this.directory));
+    }
+
+    private Set<String> fileNames(Path directory) throws Throwable {
+        try (var files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class LockFileTest {
+    /**
+     * How long a lock that is expected to wait is given to be acquired anyway.
+     */
+    private static final long WAIT = 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sharesSharedLocksAcrossThreads() throws Throwable {
+        var path = this.directory.resolve("clone.lock");
+        var executor = Executors.newSingleThreadExecutor();
+
+        try (var lock = LockFile.lock(path, true)) {
+            // completes while this thread holds its shared lock
+            assertNull(executor.submit(() -> acquire(path, true)).get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void holdsExclusiveLocksAloneAcrossThreads() throws Throwable {
+        var path = this.directory.resolve("clone.lock");
+        var executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Void> exclusive;
+
+            try (var lock = LockFile.lock(path, true)) {
+                exclusive = executor.submit(() -> acquire(path, false));
+
+                Thread.sleep(WAIT);
+                assertFalse(exclusive.isDone());
+            }
+
+            exclusive.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Every thread reads a checkout under a shared lock, and updates it under an exclusive lock if it is missing - the way the rule clone does:
+     * only the first one to get the exclusive lock updates it, the other ones finding it current.
+     */
+    @Test
+    void updatesOnceAcrossThreads() throws Throwable {
+        var path = this.directory.resolve("clone.lock");
+        var checkout = this.directory.resolve("clone.checkout");
+        var updateCount = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(8);
+        var readings = new ArrayList<Future<Void>>();
+
+        try {
+            for (var index = 0; index < 8; index++) {
+                readings.add(executor.submit(() -> {
+                    start.await();
+
+                    while (true) {
+                        try (var lock = LockFile.lock(path, true)) {
+                            if (Files.exists(checkout)) {
+                                return null;
+                            }
+                        }
+
+                        try (var lock = LockFile.lock(path, false)) {
+                            if (!Files.exists(checkout)) {
+                                updateCount.incrementAndGet();
+                                // a slow update, that the other threads wait for
+                                Thread.sleep(100);
+                                Files.writeString(checkout, "revision");
+                            }
+                        }
+                    }
+                }));
+            }
+
+            start.countDown();
+
+            for (var reading : readings) {
+                reading.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, updateCount.get());
+    }
+
+    @Test
+    void holdsExclusiveLocksAloneAcrossProcesses() throws Throwable {
+        var path = this.directory.resolve("clone.lock");
+        var process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-classpath",
+                System.getProperty("java.class.path"),
+                Holder.class.getName(),
+                path.toString()
+        ).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        var executor = Executors.newSingleThreadExecutor();
+
+        try {
+            var output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+            assertEquals("locked", output.readLine());
+
+            var shared = executor.submit(() -> acquire(path, true));
+
+            Thread.sleep(WAIT);
+            assertFalse(shared.isDone());
+
+            // releases the lock of the other process
+            process.getOutputStream().close();
+
+            shared.get(10, TimeUnit.SECONDS);
+            assertEquals(0, process.waitFor());
+        } finally {
+            executor.shutdown();
+            process.destroy();
+        }
+    }
+
+    private static Void acquire(Path path, boolean shared) throws IOException {
+        try (var lock = LockFile.lock(path, shared)) {
+            return null;
+        }
+    }
+
+    /**
+     * Another process, that holds the exclusive lock of the passed file until its standard input is closed.
+     */
+    public static class Holder {
+        public static void main(String[] arguments) throws Throwable {
+            try (var lock = LockFile.lock(Path.of(arguments[0]), false)) {
+                System.out.println("locked");
+                System.out.flush();
+
+                while (System.in.read() != -1) {
+                    // the lock is held until the standard input is closed
+                }
+            }
+        }
+    }
+}
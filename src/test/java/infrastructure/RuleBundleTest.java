@@ -0,0 +1,85 @@
+package infrastructure;
+
+import domain.RuleData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RuleBundleTest {
+    private static final List<RuleData> RULES = List.of(
+            new RuleData("S200", "{\"title\":\"Grüße\"}", "<p>😀</p>"),
+            new RuleData("S100", "{\"title\":\"Naming\"}", "<p>Method names</p>"),
+            new RuleData("S300", "{}", "")
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsMappedBundle() throws Throwable {
+        var path = this.directory.resolve("rules.bundle");
+
+        Files.write(path, bundle(RULES));
+
+        assertRules(RuleBundle.open(path));
+    }
+
+    @Test
+    void readsWrappedBundle() throws Throwable {
+        var bytes = bundle(RULES);
+        // a bundle held in a larger buffer, the way a classpath resource may be read
+        var buffer = ByteBuffer.allocate(bytes.length + 8).position(4).put(bytes).position(4).limit(4 + bytes.length);
+
+        assertRules(RuleBundle.wrap(buffer));
+    }
+
+    @Test
+    void readsEmptyBundle() throws Throwable {
+        var bundle = RuleBundle.wrap(ByteBuffer.wrap(bundle(List.of())));
+
+        assertEquals(List.of(), bundle.keys());
+        assertNull(bundle.manifest("S100"));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws Throwable {
+        var bytes = bundle(RULES);
+
+        assertThrows(IOException.class, () -> RuleBundle.wrap(ByteBuffer.wrap("not a bundle".getBytes())));
+
+        // an unknown version
+        bytes[7] = 2;
+
+        assertThrows(IOException.class, () -> RuleBundle.wrap(ByteBuffer.wrap(bytes)));
+    }
+
+    private static void assertRules(RuleBundle bundle) {
+        assertEquals(List.of("S100", "S200", "S300"), bundle.keys());
+
+        for (var rule : RULES) {
+            assertEquals(rule.manifest(), bundle.manifest(rule.key()));
+            assertEquals(rule.description(), bundle.description(rule.key()));
+        }
+
+        assertNull(bundle.manifest("S400"));
+        assertNull(bundle.description("S000"));
+    }
+
+    private static byte[] bundle(List<RuleData> rules) throws IOException {
+        var stream = new ByteArrayOutputStream();
+
+        RuleBundle.write(stream, rules.iterator());
+
+        return stream.toByteArray();
+    }
+}
@@ -0,0 +1,131 @@
+package infrastructure;
+
+import domain.Code;
+import domain.Parameter;
+import domain.Remediation;
+import domain.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RuleCodecTest {
+    private static final String KEY = "java\nRuleFilter[compatibleLanguageKey=null, statuses=null, ruleKeys=null]";
+
+    @Test
+    void readsWrittenRules() throws Throwable {
+        var rules = rules();
+
+        assertEquals(rules, RuleCodec.read(ByteBuffer.wrap(encode(rules)), KEY));
+    }
+
+    @Test
+    void keepsTheOrderOfImpacts() throws Throwable {
+        var rules = RuleCodec.read(ByteBuffer.wrap(encode(rules())), KEY);
+
+        // the order the impacts were materialized in, that the generated code follows, and not their natural order
+        assertEquals(List.of("SECURITY", "MAINTAINABILITY", "RELIABILITY"), List.copyOf(rules.get(0).code().impacts().keySet()));
+        assertEquals(List.of("RELIABILITY", "MAINTAINABILITY"), List.copyOf(rules.get(1).code().impacts().keySet()));
+    }
+
+    @Test
+    void decodesSharedValuesOnce() throws Throwable {
+        var rules = RuleCodec.read(ByteBuffer.wrap(encode(rules())), KEY);
+
+        assertSame(rules.get(0).type(), rules.get(1).type());
+        assertSame(rules.get(0).code().impacts().get("MAINTAINABILITY"), rules.get(1).code().impacts().get("RELIABILITY"));
+    }
+
+    @Test
+    void rejectsRulesOfAnotherKey() throws Throwable {
+        var bytes = encode(rules());
+
+        assertThrows(IOException.class, () -> RuleCodec.read(ByteBuffer.wrap(bytes), "kotlin"));
+    }
+
+    @Test
+    void rejectsCorruptedRules() throws Throwable {
+        var bytes = encode(rules());
+
+        bytes[bytes.length - 1] ^= 1;
+
+        assertThrows(IOException.class, () -> RuleCodec.read(ByteBuffer.wrap(bytes), KEY));
+        assertThrows(IOException.class, () -> RuleCodec.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1), KEY));
+    }
+
+    private static byte[] encode(List<Rule> rules) throws Throwable {
+        var stream = new ByteArrayOutputStream();
+
+        RuleCodec.write(stream, KEY, rules);
+
+        return stream.toByteArray();
+    }
+
+    private static List<Rule> rules() {
+        var impacts = new LinkedHashMap<String, String>();
+
+        impacts.put("SECURITY", "HIGH");
+        impacts.put("MAINTAINABILITY", "LOW");
+        impacts.put("RELIABILITY", "MEDIUM");
+
+        var otherImpacts = new LinkedHashMap<String, String>();
+
+        otherImpacts.put("RELIABILITY", "LOW");
+        otherImpacts.put("MAINTAINABILITY", "HIGH");
+
+        return List.of(
+                new Rule(
+                        "S100",
+                        "<p>Grüße 😀</p>",
+                        "BUG",
+                        "MAJOR",
+                        List.of("convention"),
+                        "MAIN",
+                        new Remediation("Constant/Issue", "5min", null, null, null),
+                        "Method names should comply with a naming convention",
+                        List.of(new Parameter("format", "Regular expression", "STRING", "^[a-z]+$")),
+                        List.of("java"),
+                        List.of("Sonar way"),
+                        "ready",
+                        new Code(impacts, "CONVENTIONAL")
+                ),
+                new Rule(
+                        "S200",
+                        "",
+                        "BUG",
+                        null,
+                        List.of(),
+                        null,
+                        null,
+                        "Without severity",
+                        List.of(),
+                        List.of("java"),
+                        List.of(),
+                        "deprecated",
+                        new Code(otherImpacts, "IDENTIFIABLE")
+                ),
+                new Rule(
+                        "S300",
+                        "",
+                        "CODE_SMELL",
+                        "MINOR",
+                        List.of(),
+                        "TEST",
+                        new Remediation("Linear", null, "2min", "10min", "per line"),
+                        "Without code",
+                        List.of(),
+                        List.of("java"),
+                        List.of(),
+                        "ready",
+                        null
+                )
+        );
+    }
+}
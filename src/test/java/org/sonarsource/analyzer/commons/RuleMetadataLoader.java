@@ -0,0 +1,56 @@
+package org.sonarsource.analyzer.commons;
+
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.server.rule.RulesDefinition.NewRepository;
+import org.sonarsource.analyzer.commons.domain.RuleManifest;
+
+import java.util.TreeMap;
+
+/**
+ * A stand-in for the metadata loader of analyzer-commons, that creates a rule for every manifest, named by its title and described by every value of the manifest.
+ */
+public class RuleMetadataLoader {
+    public RuleMetadataLoader(SonarRuntime sonarRuntime) {
+    }
+
+    public void createRuleFromRuleManifest(NewRepository repository, RuleManifest ruleManifest) {
+        var description = new StringBuilder(String.join(
+                "|",
+                ruleManifest.name(),
+                ruleManifest.defaultSeverity(),
+                ruleManifest.htmlDocumentation(),
+                ruleManifest.scope(),
+                ruleManifest.status(),
+                ruleManifest.title(),
+                ruleManifest.type(),
+                String.valueOf(ruleManifest.tags())
+        ));
+
+        for (var parameter : ruleManifest.parameters()) {
+            description.append(String.format("%nparameter %s|%s|%s|%s", parameter.defaultValue(), parameter.description(), parameter.names(), parameter.type()));
+        }
+
+        var remediation = ruleManifest.remediation();
+
+        if (remediation != null) {
+            description.append(String.format(
+                    "%nremediation %s|%s|%s|%s|%s",
+                    remediation.func(),
+                    remediation.constantCost(),
+                    remediation.linearFactor(),
+                    remediation.linearOffset(),
+                    remediation.linearDescription()
+            ));
+        }
+
+        var code = ruleManifest.code();
+
+        if (code != null) {
+            description.append(String.format("%ncode %s|%s", new TreeMap<>(code.impacts()), code.attribute()));
+        }
+
+        repository.createRule(ruleManifest.name())
+                .setName(ruleManifest.title())
+                .setHtmlDescription(description.toString());
+    }
+}
@@ -0,0 +1,27 @@
+package org.sonarsource.analyzer.commons.domain;
+
+import java.util.List;
+
+public interface RuleManifest {
+    RuleManifestCode code();
+
+    String defaultSeverity();
+
+    String htmlDocumentation();
+
+    String name();
+
+    List<RuleManifestParameter> parameters();
+
+    RuleManifestRemediation remediation();
+
+    String scope();
+
+    String status();
+
+    List<String> tags();
+
+    String title();
+
+    String type();
+}
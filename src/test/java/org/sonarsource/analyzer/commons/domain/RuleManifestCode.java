@@ -0,0 +1,9 @@
+package org.sonarsource.analyzer.commons.domain;
+
+import java.util.Map;
+
+public interface RuleManifestCode {
+    Map<String, String> impacts();
+
+    String attribute();
+}
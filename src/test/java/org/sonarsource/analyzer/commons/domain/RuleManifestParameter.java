@@ -0,0 +1,11 @@
+package org.sonarsource.analyzer.commons.domain;
+
+public interface RuleManifestParameter {
+    String defaultValue();
+
+    String description();
+
+    String names();
+
+    String type();
+}
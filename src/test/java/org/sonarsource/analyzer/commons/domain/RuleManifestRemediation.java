@@ -0,0 +1,13 @@
+package org.sonarsource.analyzer.commons.domain;
+
+public interface RuleManifestRemediation {
+    String func();
+
+    String constantCost();
+
+    String linearFactor();
+
+    String linearOffset();
+
+    String linearDescription();
+}